@@ -0,0 +1,470 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.sources.csv.adapters;
+
+import eu.binjr.common.javafx.controls.TimeRange;
+import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.adapters.BaseDataAdapter;
+import eu.binjr.core.data.adapters.DataAdapter;
+import eu.binjr.core.data.adapters.TimeSeriesBinding;
+import eu.binjr.core.data.async.AsyncTaskManager;
+import eu.binjr.core.data.exceptions.DataAdapterException;
+import eu.binjr.core.data.exceptions.FetchingDataFromAdapterException;
+import eu.binjr.core.data.exceptions.InvalidAdapterParameterException;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
+import eu.binjr.core.data.workspace.ChartType;
+import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import eu.binjr.core.data.workspace.UnitPrefixes;
+import eu.binjr.core.preferences.UserPreferences;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.TreeItem;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link DataAdapter} implementation used to feed {@link eu.binjr.core.data.workspace.Worksheet} instances
+ * with data from a directory of CSV files sharing the same layout, each of them holding a different time interval.
+ * <p>Only the first and last records of each file are read when the source is opened; the files that overlap the
+ * requested time interval are then loaded on demand, in parallel, and kept in memory up to the limit defined by
+ * {@link CsvFileAdapterPreferences#maxLoadedPartitions}.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class CsvDirectoryAdapter extends BaseDataAdapter {
+    private static final Logger logger = LogManager.getLogger(CsvDirectoryAdapter.class);
+    private final Object partitionsLock = new Object();
+    private final Map<Path, PartitionHandle> loadedPartitions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, PartitionHandle> eldest) {
+            if (size() > CsvFileAdapterPreferences.getInstance().maxLoadedPartitions.get().intValue()) {
+                logger.debug(() -> "Unloading " + eldest.getKey());
+                eldest.getValue().evict();
+                return true;
+            }
+            return false;
+        }
+    };
+    private String dateTimePattern;
+    private Path directoryPath;
+    private String filePattern;
+    private ZoneId zoneId;
+    private Character delimiter;
+    private String encoding;
+    private boolean followFiles;
+    private List<Partition> partitions;
+    private boolean partitionsOverlap;
+
+    /**
+     * Initializes a new instance of the {@link CsvDirectoryAdapter} class with a set of default values.
+     *
+     * @throws DataAdapterException if the {@link DataAdapter} could not be initializes.
+     */
+    public CsvDirectoryAdapter() throws DataAdapterException {
+        this("", "*.csv", ZoneId.systemDefault(), "utf-8", "yyyy-MM-dd HH:mm:ss", ',', false);
+    }
+
+    /**
+     * Initializes a new instance of the {@link CsvDirectoryAdapter} class with the provided parameters.
+     *
+     * @param directoryPath   the path to the directory that contains the csv files.
+     * @param filePattern     a glob pattern that the name of the files to load must match.
+     * @param zoneId          the time zone to used.
+     * @param encoding        the encoding for the csv files.
+     * @param dateTimePattern a pattern to decode time stamps.
+     * @param delimiter       the character used by the csv files to separate cells in csv records.
+     * @param followFiles     true if new files and lines appended to the most recent file should be loaded, false otherwise.
+     * @throws DataAdapterException if the {@link DataAdapter} could not be initialized.
+     */
+    public CsvDirectoryAdapter(String directoryPath,
+                               String filePattern,
+                               ZoneId zoneId,
+                               String encoding,
+                               String dateTimePattern,
+                               char delimiter,
+                               boolean followFiles) throws DataAdapterException {
+        super();
+        this.directoryPath = Paths.get(directoryPath);
+        this.filePattern = filePattern;
+        this.zoneId = zoneId;
+        this.encoding = encoding;
+        this.dateTimePattern = dateTimePattern;
+        this.delimiter = delimiter;
+        this.followFiles = followFiles;
+    }
+
+    @Override
+    public FilterableTreeItem<TimeSeriesBinding> getBindingTree() throws DataAdapterException {
+        FilterableTreeItem<TimeSeriesBinding> tree = new FilterableTreeItem<>(
+                new TimeSeriesBinding(
+                        "",
+                        "/",
+                        null,
+                        getSourceName(),
+                        UnitPrefixes.METRIC,
+                        ChartType.STACKED,
+                        "-",
+                        "/" + getSourceName(), this));
+        var index = getPartitions();
+        if (index.isEmpty()) {
+            throw new FetchingDataFromAdapterException("No csv file matching '" + filePattern + "' could be found in " + directoryPath);
+        }
+        var handle = acquirePartition(index.get(0).path);
+        try {
+            List<String> columnHeaders = handle.adapter.getHeaders();
+            for (int i = 0; i < columnHeaders.size(); i++) {
+                String columnIndex = Integer.toString(i + 1);
+                String header = columnHeaders.get(i).isBlank() ? "Column #" + columnIndex : columnHeaders.get(i);
+                TimeSeriesBinding b = new TimeSeriesBinding(
+                        columnIndex,
+                        columnIndex,
+                        null,
+                        header,
+                        UnitPrefixes.METRIC,
+                        ChartType.STACKED,
+                        "-",
+                        "/" + getSourceName() + "/" + header,
+                        this);
+                tree.getInternalChildren().add(new TreeItem<>(b));
+            }
+        } catch (IOException e) {
+            throw new FetchingDataFromAdapterException(e);
+        } finally {
+            releasePartition(handle);
+        }
+        return tree;
+    }
+
+    @Override
+    public TimeRange getInitialTimeRange(String path, List<TimeSeriesInfo> seriesInfo) throws DataAdapterException {
+        if (this.isClosed()) {
+            throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
+        }
+        var index = getPartitions();
+        if (index.isEmpty()) {
+            throw new FetchingDataFromAdapterException("No data could be found in " + directoryPath);
+        }
+        long first = index.get(0).first;
+        long last = index.stream().mapToLong(p -> p.last).max().orElse(first);
+        return TimeRange.of(Instant.ofEpochMilli(first).atZone(zoneId), Instant.ofEpochMilli(last).atZone(zoneId));
+    }
+
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache) throws DataAdapterException {
+        return fetchData(path, begin, end, seriesInfo, bypassCache, UserPreferences.getInstance().downSamplingThreshold.get().intValue());
+    }
+
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold) throws DataAdapterException {
+        if (this.isClosed()) {
+            throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
+        }
+        var selected = selectPartitions(getPartitions(), begin.toEpochMilli(), end.toEpochMilli());
+        try (Profiler ignored = Profiler.start(() -> "Fetching data from " + selected.size() + " csv file(s) in " + directoryPath, logger::trace)) {
+            List<Callable<Map<TimeSeriesInfo, TimeSeriesProcessor>>> loads = new ArrayList<>(selected.size());
+            for (var partition : selected) {
+                loads.add(() -> {
+                    var handle = acquirePartition(partition.path);
+                    try {
+                        return handle.adapter.fetchData(path, begin, end, seriesInfo, bypassCache, downSamplingThreshold);
+                    } finally {
+                        releasePartition(handle);
+                    }
+                });
+            }
+            // This already runs on the sub-tasks pool: the partitions must not be loaded by blocking on it.
+            var results = AsyncTaskManager.getInstance().runSubTasks(loads);
+            // Merge results in the order of the partitions, so that samples remain sorted when files don't overlap.
+            Map<TimeSeriesInfo, List<XYChart.Data<ZonedDateTime, Double>>> samples = new HashMap<>();
+            for (var info : seriesInfo) {
+                samples.put(info, new ArrayList<>());
+            }
+            for (var result : results) {
+                for (var entry : result.entrySet()) {
+                    samples.get(entry.getKey()).addAll(entry.getValue().getData());
+                }
+            }
+            Map<TimeSeriesInfo, TimeSeriesProcessor> series = new HashMap<>();
+            for (var entry : samples.entrySet()) {
+                var proc = new DoubleTimeSeriesProcessor();
+                proc.setData(entry.getValue());
+                series.put(entry.getKey(), proc);
+            }
+            return series;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DataAdapterException) {
+                throw (DataAdapterException) e.getCause();
+            }
+            throw new FetchingDataFromAdapterException("Error fetching data from " + directoryPath, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchingDataFromAdapterException("Interrupted while fetching data from " + directoryPath, e);
+        }
+    }
+
+    @Override
+    public boolean isSortingRequired() {
+        return partitionsOverlap;
+    }
+
+    @Override
+    public String getEncoding() {
+        return encoding;
+    }
+
+    @Override
+    public ZoneId getTimeZoneId() {
+        return zoneId;
+    }
+
+    @Override
+    public String getSourceName() {
+        return new StringBuilder("[CSV] ")
+                .append(directoryPath != null ? directoryPath.getFileName() : "???")
+                .append("/")
+                .append(filePattern != null ? filePattern : "???")
+                .append(" (")
+                .append(zoneId != null ? zoneId : "???")
+                .append(")")
+                .toString();
+    }
+
+    @Override
+    public Map<String, String> getParams() {
+        Map<String, String> params = new HashMap<>();
+        params.put("zoneId", zoneId.toString());
+        params.put("encoding", encoding);
+        params.put("delimiter", Character.toString(delimiter));
+        params.put("dateTimePattern", dateTimePattern);
+        params.put("directoryPath", directoryPath.toString());
+        params.put("filePattern", filePattern);
+        params.put("followFiles", Boolean.toString(followFiles));
+        return params;
+    }
+
+    @Override
+    public void loadParams(Map<String, String> params) throws DataAdapterException {
+        if (params == null) {
+            throw new InvalidAdapterParameterException("Could not find parameter list for adapter " + getSourceName());
+        }
+        zoneId = validateParameter(params, "zoneId",
+                s -> {
+                    if (s == null) {
+                        throw new InvalidAdapterParameterException("Parameter zoneId is missing in adapter " + getSourceName());
+                    }
+                    return ZoneId.of(s);
+                });
+        String path = validateParameterNullity(params, "directoryPath");
+        filePattern = validateParameterNullity(params, "filePattern");
+        delimiter = validateParameter(params, "delimiter", s -> {
+            if (s == null || s.length() != 1) {
+                throw new InvalidAdapterParameterException("Parameter 'delimiter' is missing for adapter " + this.getSourceName());
+            }
+            return s.charAt(0);
+        });
+        encoding = validateParameterNullity(params, "encoding");
+        dateTimePattern = validateParameterNullity(params, "dateTimePattern");
+        followFiles = validateParameter(params, "followFiles", Boolean::parseBoolean);
+        this.directoryPath = Paths.get(path);
+        synchronized (partitionsLock) {
+            this.partitions = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (partitionsLock) {
+            loadedPartitions.values().forEach(PartitionHandle::evict);
+            loadedPartitions.clear();
+            partitions = null;
+        }
+        super.close();
+    }
+
+    private List<Partition> getPartitions() throws DataAdapterException {
+        synchronized (partitionsLock) {
+            if (partitions == null || followFiles) {
+                updatePartitions();
+            }
+            return partitions;
+        }
+    }
+
+    private void updatePartitions() throws DataAdapterException {
+        Set<Path> known = new HashSet<>();
+        List<Partition> index = new ArrayList<>();
+        if (partitions != null) {
+            for (var p : partitions) {
+                known.add(p.path);
+                index.add(p);
+            }
+        }
+        List<Path> newFiles = new ArrayList<>();
+        try (var stream = Files.newDirectoryStream(directoryPath, filePattern)) {
+            for (var file : stream) {
+                if (Files.isRegularFile(file) && !known.contains(file)) {
+                    newFiles.add(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new FetchingDataFromAdapterException("Error listing files in " + directoryPath + ": " + e.getMessage(), e);
+        }
+        if (newFiles.isEmpty() && partitions != null) {
+            return;
+        }
+        try (Profiler ignored = Profiler.start(() -> "Scanning time range of " + newFiles.size() + " csv file(s) in " + directoryPath, logger::trace)) {
+            List<Callable<Partition>> scans = new ArrayList<>(newFiles.size());
+            for (var file : newFiles) {
+                scans.add(() -> scanPartition(file));
+            }
+            for (var partition : AsyncTaskManager.getInstance().runSubTasks(scans)) {
+                if (partition != null) {
+                    index.add(partition);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new FetchingDataFromAdapterException("Error scanning files in " + directoryPath, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FetchingDataFromAdapterException("Interrupted while scanning files in " + directoryPath, e);
+        }
+        index.sort(Comparator.comparingLong((Partition p) -> p.first).thenComparingLong(p -> p.last));
+        boolean overlap = false;
+        for (int i = 1; i < index.size(); i++) {
+            if (index.get(i).first < index.get(i - 1).last) {
+                overlap = true;
+                break;
+            }
+        }
+        if (overlap) {
+            logger.debug(() -> "Some of the csv files in " + directoryPath + " hold overlapping time intervals");
+        }
+        this.partitionsOverlap = overlap;
+        this.partitions = index;
+    }
+
+    private Partition scanPartition(Path file) {
+        try (var adapter = newPartitionAdapter(file)) {
+            var range = adapter.scanTimeRange();
+            return new Partition(file, range.getBeginning().toInstant().toEpochMilli(), range.getEnd().toInstant().toEpochMilli());
+        } catch (Exception e) {
+            logger.warn("Ignoring file " + file + ": " + e.getMessage());
+            logger.debug(() -> "Stack Trace", e);
+            return null;
+        }
+    }
+
+    private List<Partition> selectPartitions(List<Partition> index, long begin, long end) {
+        // Besides the files that overlap the requested interval, include those that hold the closest samples
+        // on either side of it, like a single file adapter does.
+        int from = 0;
+        int to = index.size() - 1;
+        for (int i = 0; i < index.size(); i++) {
+            if (index.get(i).first <= begin) {
+                from = i;
+            }
+        }
+        for (int i = index.size() - 1; i >= 0; i--) {
+            if (getLastTimestamp(index, i) >= end) {
+                to = i;
+            }
+        }
+        List<Partition> selected = new ArrayList<>();
+        for (int i = 0; i < index.size(); i++) {
+            var p = index.get(i);
+            if ((i >= from && i <= to) || (p.first <= end && getLastTimestamp(index, i) >= begin)) {
+                selected.add(p);
+            }
+        }
+        return selected;
+    }
+
+    private long getLastTimestamp(List<Partition> index, int i) {
+        // The most recent file may still be growing when following files.
+        if (followFiles && i == index.size() - 1) {
+            return Long.MAX_VALUE;
+        }
+        return index.get(i).last;
+    }
+
+    private PartitionHandle acquirePartition(Path file) throws DataAdapterException {
+        synchronized (partitionsLock) {
+            var handle = loadedPartitions.get(file);
+            if (handle == null) {
+                handle = new PartitionHandle(newPartitionAdapter(file));
+                loadedPartitions.put(file, handle);
+            }
+            handle.leases++;
+            return handle;
+        }
+    }
+
+    private void releasePartition(PartitionHandle handle) {
+        synchronized (partitionsLock) {
+            handle.leases--;
+            if (handle.evicted && handle.leases == 0) {
+                handle.adapter.close();
+            }
+        }
+    }
+
+    private CsvFileAdapter newPartitionAdapter(Path file) throws DataAdapterException {
+        return new CsvFileAdapter(file.toString(), zoneId, encoding, dateTimePattern, delimiter, followFiles);
+    }
+
+    private static final class Partition {
+        private final Path path;
+        private final long first;
+        private final long last;
+
+        private Partition(Path path, long first, long last) {
+            this.path = path;
+            this.first = first;
+            this.last = last;
+        }
+    }
+
+    private static final class PartitionHandle {
+        private final CsvFileAdapter adapter;
+        private int leases = 0;
+        private boolean evicted = false;
+
+        private PartitionHandle(CsvFileAdapter adapter) {
+            this.adapter = adapter;
+        }
+
+        private void evict() {
+            evicted = true;
+            // Adapters still in use are closed when released.
+            if (leases == 0) {
+                adapter.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.sources.csv.adapters;
+
+import eu.binjr.core.data.adapters.DataAdapter;
+import eu.binjr.core.data.exceptions.CannotInitializeDataAdapterException;
+import eu.binjr.core.data.exceptions.DataAdapterException;
+import eu.binjr.core.dialogs.Dialogs;
+import javafx.scene.Node;
+import javafx.scene.control.TextField;
+import javafx.stage.DirectoryChooser;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+
+/**
+ * An implementation of the {@link eu.binjr.core.dialogs.DataAdapterDialog} class that presents a dialog box to
+ * retrieve the parameters specific {@link CsvDirectoryAdapter}
+ *
+ * @author Frederic Thevenet
+ */
+public class CsvDirectoryAdapterDialog extends CsvFileAdapterDialog {
+    private final TextField filePatternField = new TextField("*.csv");
+
+    /**
+     * Initializes a new instance of the {@link CsvDirectoryAdapterDialog} class.
+     *
+     * @param owner the owner window for the dialog
+     */
+    public CsvDirectoryAdapterDialog(Node owner) {
+        super(owner, "mostRecentCsvDirectories", "Add a directory of csv files");
+        addParamField(this.filePatternField, "File pattern:");
+    }
+
+    @Override
+    protected File displayFileChooser(Node owner) {
+        try {
+            DirectoryChooser dirChooser = new DirectoryChooser();
+            dirChooser.setTitle("Open directory of CSV files");
+            Dialogs.getInitialDir(getMostRecentList()).ifPresent(dirChooser::setInitialDirectory);
+            return dirChooser.showDialog(Dialogs.getStage(owner));
+        } catch (Exception e) {
+            Dialogs.notifyException("Error while displaying directory chooser: " + e.getMessage(), e, owner);
+        }
+        return null;
+    }
+
+    @Override
+    protected DataAdapter getDataAdapter() throws DataAdapterException {
+        Path directoryPath = Paths.get(getSourceUri());
+        if (!Files.isDirectory(directoryPath)) {
+            throw new CannotInitializeDataAdapterException("Cannot find directory " + getSourceUri());
+        }
+        getMostRecentList().push(directoryPath);
+        return new CsvDirectoryAdapter(
+                getSourceUri(),
+                filePatternField.getText(),
+                ZoneId.of(getSourceTimezone()),
+                encodingField.getText(),
+                dateFormatPattern.getText(),
+                separatorField.getText().charAt(0),
+                followFileCheckBox.isSelected());
+    }
+}
@@ -16,11 +16,18 @@
 
 package eu.binjr.sources.csv.adapters;
 
+import eu.binjr.common.io.CompressionType;
+import eu.binjr.common.io.IOUtils;
+import eu.binjr.common.io.ReadAheadInputStream;
 import eu.binjr.common.javafx.controls.TimeRange;
 import eu.binjr.common.logging.Profiler;
 import eu.binjr.core.data.adapters.BaseDataAdapter;
 import eu.binjr.core.data.adapters.DataAdapter;
 import eu.binjr.core.data.adapters.TimeSeriesBinding;
+import eu.binjr.core.data.codec.columnar.ColumnarBlock;
+import eu.binjr.core.data.codec.columnar.ColumnarFileReader;
+import eu.binjr.core.data.codec.columnar.ColumnarFileWriter;
+import eu.binjr.core.data.codec.columnar.ColumnarPyramid;
 import eu.binjr.core.data.codec.csv.CsvDecoder;
 import eu.binjr.core.data.codec.csv.DataSample;
 import eu.binjr.core.data.exceptions.DataAdapterException;
@@ -31,6 +38,8 @@ import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.ChartType;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
 import eu.binjr.core.data.workspace.UnitPrefixes;
+import eu.binjr.core.preferences.DownSamplingAlgorithm;
+import eu.binjr.core.preferences.UserPreferences;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.TreeItem;
 import org.apache.logging.log4j.LogManager;
@@ -39,16 +48,23 @@ import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
 
 /**
  * A {@link DataAdapter} implementation used to feed {@link eu.binjr.core.data.workspace.Worksheet} instances
@@ -65,7 +81,11 @@ public class CsvFileAdapter extends BaseDataAdapter {
     private String encoding;
     private CsvDecoder csvDecoder;
     private ConcurrentNavigableMap<Long, DataSample> sortedDataStore;
+    private ColumnarStore columnarStore;
     private List<String> headers;
+    private boolean followFile;
+    private long parsedOffset = 0;
+    private CompressionType compression;
 
     /**
      * Initializes a new instance of the {@link CsvFileAdapter} class with a set of default values.
@@ -98,12 +118,28 @@ public class CsvFileAdapter extends BaseDataAdapter {
      * @throws DataAdapterException if the {@link DataAdapter} could not be initialized.
      */
     public CsvFileAdapter(String csvPath, ZoneId zoneId, String encoding, String dateTimePattern, char delimiter) throws DataAdapterException {
+        this(csvPath, zoneId, encoding, dateTimePattern, delimiter, false);
+    }
+
+    /**
+     * Initializes a new instance of the {@link CsvFileAdapter} class with the provided parameters.
+     *
+     * @param csvPath         the path to the csv file.
+     * @param zoneId          the time zone to used.
+     * @param encoding        the encoding for the csv file.
+     * @param dateTimePattern a pattern to decode time stamps.
+     * @param delimiter       the character used by the csv file to separate cells in csv records.
+     * @param followFile      true if lines appended to the file after it was first opened should be loaded, false otherwise.
+     * @throws DataAdapterException if the {@link DataAdapter} could not be initialized.
+     */
+    public CsvFileAdapter(String csvPath, ZoneId zoneId, String encoding, String dateTimePattern, char delimiter, boolean followFile) throws DataAdapterException {
         super();
         this.csvPath = Paths.get(csvPath);
         this.zoneId = zoneId;
         this.encoding = encoding;
         this.dateTimePattern = dateTimePattern;
         this.delimiter = delimiter;
+        this.followFile = followFile;
         this.csvDecoder = decoderFactory(zoneId, encoding, dateTimePattern, delimiter);
     }
 
@@ -119,11 +155,11 @@ public class CsvFileAdapter extends BaseDataAdapter {
                         ChartType.STACKED,
                         "-",
                         "/" + getSourceName(), this));
-        try (InputStream in = Files.newInputStream(csvPath)) {
-            this.headers = csvDecoder.getDataColumnHeaders(in);
-            for (int i = 0; i < headers.size(); i++) {
+        try {
+            List<String> columnHeaders = getHeaders();
+            for (int i = 0; i < columnHeaders.size(); i++) {
                 String columnIndex = Integer.toString(i + 1);
-                String header = headers.get(i).isBlank() ? "Column #" + columnIndex : headers.get(i);
+                String header = columnHeaders.get(i).isBlank() ? "Column #" + columnIndex : columnHeaders.get(i);
                 TimeSeriesBinding b = new TimeSeriesBinding(
                         columnIndex,
                         columnIndex,
@@ -147,12 +183,61 @@ public class CsvFileAdapter extends BaseDataAdapter {
         if (this.isClosed()) {
             throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
         }
-        return TimeRange.of(getDataStore().get(getDataStore().firstKey()).getTimeStamp(),
-                getDataStore().get(getDataStore().lastKey()).getTimeStamp());
+        ConcurrentNavigableMap<Long, DataSample> dataStore;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        synchronized (this) {
+            dataStore = getDataStore();
+            if (columnarStore != null && !columnarStore.reader.isEmpty()) {
+                first = columnarStore.reader.getFirstTimestamp();
+                last = columnarStore.reader.getLastTimestamp();
+            }
+        }
+        if (!dataStore.isEmpty()) {
+            first = Math.min(first, dataStore.firstKey());
+            last = Math.max(last, dataStore.lastKey());
+        }
+        if (first > last) {
+            throw new FetchingDataFromAdapterException("No data could be found in " + csvPath);
+        }
+        return TimeRange.of(Instant.ofEpochMilli(first).atZone(zoneId), Instant.ofEpochMilli(last).atZone(zoneId));
+    }
+
+    /**
+     * Returns the time interval covered by the file, reading as little of it as possible.
+     * <p>For uncompressed files, only the first and last records are decoded; otherwise, the time range is obtained
+     * from the columnar cache or, failing that, by loading the whole file.</p>
+     *
+     * @return the time interval covered by the file.
+     * @throws DataAdapterException if an error occurs while reading the file.
+     */
+    TimeRange scanTimeRange() throws DataAdapterException {
+        try {
+            if (sortedDataStore == null && getCompressionType() == CompressionType.NONE) {
+                long size = Files.size(csvPath);
+                long firstLineStart = findNextLineStart(0, size);
+                long firstLineEnd = findNextLineStart(firstLineStart, size);
+                long lastLineEnd = isFollowingFile() ? findEndOfLastLine(size) : size;
+                long lastLineStart = findLineStart(lastLineEnd);
+                ZonedDateTime first = decodeTimestamp(firstLineStart, firstLineEnd);
+                ZonedDateTime last = decodeTimestamp(Math.max(firstLineStart, lastLineStart), lastLineEnd);
+                if (first != null && last != null) {
+                    return TimeRange.of(first, last);
+                }
+            }
+        } catch (IOException | DataAdapterException e) {
+            logger.debug(() -> "Could not scan time range from the bounds of " + csvPath + ": loading whole file", e);
+        }
+        return getInitialTimeRange("", List.of());
     }
 
     @Override
     public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache) throws DataAdapterException {
+        return fetchData(path, begin, end, seriesInfo, bypassCache, UserPreferences.getInstance().downSamplingThreshold.get().intValue());
+    }
+
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold) throws DataAdapterException {
         if (this.isClosed()) {
             throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
         }
@@ -162,9 +247,24 @@ public class CsvFileAdapter extends BaseDataAdapter {
             rDict.computeIfAbsent(info.getBinding().getLabel(), s -> new ArrayList<>()).add(info);
             series.put(info, new DoubleTimeSeriesProcessor());
         }
-        Long fromKey = Objects.requireNonNullElse(getDataStore().floorKey(begin.toEpochMilli()), begin.toEpochMilli());
-        Long toKey = Objects.requireNonNullElse(getDataStore().ceilingKey(end.toEpochMilli()), end.toEpochMilli());
-        for (DataSample sample : getDataStore().subMap(fromKey, true, toKey, true).values()) {
+        ConcurrentNavigableMap<Long, DataSample> dataStore;
+        ColumnarStore store;
+        synchronized (this) {
+            dataStore = getDataStore();
+            // Hold on to the store, as another fetch may replace it if the file was truncated in the meantime.
+            store = columnarStore != null ? columnarStore.acquire() : null;
+        }
+        if (store != null) {
+            try {
+                var rawColumns = fetchFromPyramids(store, begin.toEpochMilli(), end.toEpochMilli(), downSamplingThreshold, rDict, series);
+                fetchFromColumnarStore(store.reader, begin.toEpochMilli(), end.toEpochMilli(), rawColumns, series);
+            } finally {
+                store.release();
+            }
+        }
+        Long fromKey = Objects.requireNonNullElse(dataStore.floorKey(begin.toEpochMilli()), begin.toEpochMilli());
+        Long toKey = Objects.requireNonNullElse(dataStore.ceilingKey(end.toEpochMilli()), end.toEpochMilli());
+        for (DataSample sample : dataStore.subMap(fromKey, true, toKey, true).values()) {
             for (String n : sample.getCells().keySet()) {
                 List<TimeSeriesInfo> timeSeriesInfoList = rDict.get(n);
                 if (timeSeriesInfoList != null) {
@@ -205,6 +305,7 @@ public class CsvFileAdapter extends BaseDataAdapter {
         params.put("delimiter", Character.toString(delimiter));
         params.put("dateTimePattern", dateTimePattern);
         params.put("csvPath", csvPath.toString());
+        params.put("followFile", Boolean.toString(followFile));
         return params;
     }
 
@@ -229,27 +330,465 @@ public class CsvFileAdapter extends BaseDataAdapter {
         });
         encoding = validateParameterNullity(params, "encoding");
         dateTimePattern = validateParameterNullity(params, "dateTimePattern");
+        followFile = validateParameter(params, "followFile", Boolean::parseBoolean);
         this.csvPath = Paths.get(path);
+        this.headers = null;
+        this.compression = null;
         this.csvDecoder = decoderFactory(zoneId, encoding, dateTimePattern, delimiter);
     }
 
     @Override
     public void close() {
-        if (sortedDataStore != null) {
-            sortedDataStore.clear();
+        synchronized (this) {
+            if (sortedDataStore != null) {
+                sortedDataStore.clear();
+            }
+            closeColumnarStore();
         }
         super.close();
     }
 
-    protected ConcurrentNavigableMap<Long, DataSample> getDataStore() throws DataAdapterException {
-        if (sortedDataStore == null) {
-            try (InputStream in = Files.newInputStream(csvPath)) {
-                this.sortedDataStore = buildSortedDataStore(in);
+    /**
+     * Returns the in-memory store of samples parsed from the CSV file.
+     * <p>If a columnar cache is in use, only samples that were appended to the file after the cache was written
+     * are held in this store.</p>
+     *
+     * @return the in-memory store of samples parsed from the CSV file.
+     * @throws DataAdapterException if an error occurs while loading data from the file.
+     */
+    protected synchronized ConcurrentNavigableMap<Long, DataSample> getDataStore() throws DataAdapterException {
+        try {
+            if (sortedDataStore == null) {
+                initDataStore();
+            } else if (isFollowingFile()) {
+                readAppendedData();
+            }
+            return sortedDataStore;
+        } catch (IOException e) {
+            throw new DataAdapterException(e);
+        }
+    }
+
+    private void initDataStore() throws DataAdapterException {
+        try {
+            long size = Files.size(csvPath);
+            String lastModified = Long.toString(Files.getLastModifiedTime(csvPath).toMillis());
+            // When following a file that is being written to, ignore a possibly incomplete last line.
+            long endOffset = isFollowingFile() ? findEndOfLastLine(size) : size;
+            var prefs = CsvFileAdapterPreferences.getInstance();
+            if (!prefs.columnarCacheEnabled.get()) {
+                this.sortedDataStore = buildSortedDataStore(0, endOffset);
+                this.parsedOffset = endOffset;
+                return;
+            }
+            Path cachePath = prefs.columnarCacheLocation.get().resolve(
+                    UUID.nameUUIDFromBytes(csvPath.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8)) + ".bjrc");
+            var reader = openColumnarStore(cachePath, size, lastModified);
+            if (reader != null) {
+                logger.debug(() -> "Reusing columnar cache " + cachePath + " for " + csvPath);
+                this.columnarStore = new ColumnarStore(reader);
+                this.sortedDataStore = new ConcurrentSkipListMap<>();
+                this.parsedOffset = Long.parseLong(reader.getMetadata().get("size"));
+                if (isFollowingFile()) {
+                    readAppendedData();
+                }
+                return;
+            }
+            this.sortedDataStore = buildSortedDataStore(0, endOffset);
+            this.parsedOffset = endOffset;
+            try (Profiler ignored = Profiler.start("Writing columnar cache for csv file", logger::trace)) {
+                var metadata = getSourceMetadata(endOffset);
+                metadata.put("lastModified", lastModified);
+                try (var writer = new ColumnarFileWriter(cachePath, getHeaders().size(), metadata)) {
+                    double[] row = new double[getHeaders().size()];
+                    for (var entry : sortedDataStore.entrySet()) {
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = Objects.requireNonNullElse(entry.getValue().getCells().get(Integer.toString(i + 1)), Double.NaN);
+                        }
+                        writer.append(entry.getKey(), row);
+                    }
+                    writer.commit();
+                }
+                this.columnarStore = new ColumnarStore(ColumnarFileReader.open(cachePath));
+                // Data is now served from the columnar store: release the parsed samples.
+                this.sortedDataStore = new ConcurrentSkipListMap<>();
             } catch (IOException e) {
-                throw new DataAdapterException(e);
+                logger.warn("Could not write columnar cache for " + csvPath + ": " + e.getMessage());
+                logger.debug(() -> "Stack Trace", e);
+            }
+        } catch (IOException e) {
+            throw new DataAdapterException(e);
+        }
+    }
+
+    private void readAppendedData() throws DataAdapterException {
+        try {
+            long size = Files.size(csvPath);
+            if (size < parsedOffset) {
+                logger.info(() -> csvPath + " has been truncated: reloading from the start of the file");
+                closeColumnarStore();
+                this.sortedDataStore = null;
+                this.parsedOffset = 0;
+                initDataStore();
+                return;
             }
+            long endOffset = findEndOfLastLine(size);
+            if (endOffset <= parsedOffset) {
+                return;
+            }
+            long from = parsedOffset;
+            try (Profiler ignored = Profiler.start(() -> "Loading " + (endOffset - from) + " bytes appended to " + csvPath, logger::trace)) {
+                var appended = buildSortedDataStore(from, endOffset);
+                sortedDataStore.putAll(appended);
+                this.parsedOffset = endOffset;
+            }
+        } catch (IOException e) {
+            throw new DataAdapterException(e);
+        }
+    }
+
+    private long findEndOfLastLine(long size) throws IOException {
+        try (var channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long position = size;
+            while (position > parsedOffset) {
+                int length = (int) Math.min(buffer.capacity(), position - parsedOffset);
+                position -= length;
+                buffer.clear().limit(length);
+                readFully(channel, buffer, position);
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+            }
+            return parsedOffset;
         }
-        return sortedDataStore;
+    }
+
+    private long findNextLineStart(long from, long size) throws IOException {
+        try (var channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long position = from;
+            while (position < size) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+                readFully(channel, buffer, position);
+                for (int i = 0; i < buffer.position(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+                position += buffer.position();
+            }
+            return size;
+        }
+    }
+
+    private long findLineStart(long end) throws IOException {
+        try (var channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            // Skip the line terminator of the line that ends at the specified offset.
+            long position = Math.max(0, end - 1);
+            while (position > 0) {
+                int length = (int) Math.min(buffer.capacity(), position);
+                position -= length;
+                buffer.clear().limit(length);
+                readFully(channel, buffer, position);
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        return position + i + 1;
+                    }
+                }
+            }
+            return 0;
+        }
+    }
+
+    private ZonedDateTime decodeTimestamp(long from, long to) throws IOException, DataAdapterException {
+        if (from >= to) {
+            return null;
+        }
+        List<ZonedDateTime> timestamps = new ArrayList<>(1);
+        try (InputStream in = openDataStream(from, to)) {
+            csvDecoder.decode(in, getHeaders(), false, sample -> timestamps.add(sample.getTimeStamp()));
+        }
+        return timestamps.isEmpty() ? null : timestamps.get(0);
+    }
+
+    private ColumnarFileReader openColumnarStore(Path cachePath, long size, String lastModified) {
+        if (!Files.exists(cachePath)) {
+            return null;
+        }
+        try {
+            var reader = ColumnarFileReader.open(cachePath);
+            var metadata = reader.getMetadata();
+            long cachedSize = Long.parseLong(metadata.getOrDefault("size", "-1"));
+            if (cachedSize >= 0 && cachedSize <= size &&
+                    getSourceMetadata(cachedSize).entrySet().stream().allMatch(e -> e.getValue().equals(metadata.get(e.getKey())))) {
+                // A cache written while following a file remains valid as long as the file has only been appended to.
+                if (isFollowingFile() || (cachedSize == size && lastModified.equals(metadata.get("lastModified")))) {
+                    return reader;
+                }
+            }
+            logger.debug(() -> "Columnar cache " + cachePath + " is stale");
+            reader.close();
+        } catch (IOException | NumberFormatException e) {
+            logger.debug(() -> "Could not open columnar cache " + cachePath, e);
+        }
+        return null;
+    }
+
+    private Map<String, String> getSourceMetadata(long size) throws IOException {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("csvPath", csvPath.toAbsolutePath().toString());
+        metadata.put("size", Long.toString(size));
+        metadata.put("checksum", Long.toString(checksum(size)));
+        metadata.put("zoneId", zoneId.toString());
+        metadata.put("encoding", encoding);
+        metadata.put("delimiter", Character.toString(delimiter));
+        metadata.put("dateTimePattern", dateTimePattern);
+        return metadata;
+    }
+
+    private long checksum(long size) throws IOException {
+        try (var channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(4096, size));
+            readFully(channel, buffer, size - buffer.capacity());
+            var crc = new CRC32();
+            crc.update(buffer.flip());
+            return crc.getValue();
+        }
+    }
+
+    private InputStream openDataStream(long from, long to) throws IOException {
+        var compressionType = getCompressionType();
+        if (compressionType == CompressionType.NONE) {
+            var channel = FileChannel.open(csvPath, StandardOpenOption.READ);
+            return IOUtils.boundedInputStream(Channels.newInputStream(channel.position(from)), to - from);
+        }
+        // Decompress on a dedicated thread, so that it overlaps with parsing without tying up a pooled worker
+        // (which could starve when several files are loaded in parallel on the sub-tasks pool).
+        return new ReadAheadInputStream(
+                compressionType.decompress(Files.newInputStream(csvPath)),
+                r -> {
+                    Thread thread = new Thread(r, "csv-read-ahead-" + csvPath.getFileName());
+                    thread.setDaemon(true);
+                    thread.start();
+                });
+    }
+
+    private CompressionType getCompressionType() throws IOException {
+        if (compression == null) {
+            compression = CompressionType.detect(csvPath);
+            if (compression != CompressionType.NONE) {
+                logger.debug(() -> csvPath + " is " + compression + " compressed");
+                if (followFile) {
+                    logger.warn("Cannot follow compressed file " + csvPath);
+                }
+            }
+        }
+        return compression;
+    }
+
+    private boolean isFollowingFile() throws IOException {
+        return followFile && getCompressionType() == CompressionType.NONE;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return;
+            }
+        }
+    }
+
+    private void closeColumnarStore() {
+        if (columnarStore != null) {
+            // The store is actually closed once the fetches still reading from it are done.
+            columnarStore.release();
+            columnarStore = null;
+        }
+    }
+
+    private void fetchFromColumnarStore(ColumnarFileReader columnarStore,
+                                        long begin,
+                                        long end,
+                                        Map<String, List<TimeSeriesInfo>> rDict,
+                                        Map<TimeSeriesInfo, TimeSeriesProcessor> series) {
+        List<ColumnarBlock> blocks = columnarStore.getBlocks(begin, end);
+        if (blocks.isEmpty()) {
+            return;
+        }
+        List<long[]> timestamps = new ArrayList<>(blocks.size());
+        for (var block : blocks) {
+            timestamps.add(columnarStore.readTimestamps(block));
+        }
+        // Include the closest samples on either side of the requested interval, like the map based store does.
+        long fromKey = begin;
+        for (long ts : timestamps.get(0)) {
+            if (ts <= begin) {
+                fromKey = ts;
+            }
+        }
+        long toKey = end;
+        long[] lastTimestamps = timestamps.get(timestamps.size() - 1);
+        for (int i = lastTimestamps.length - 1; i >= 0; i--) {
+            if (lastTimestamps[i] >= end) {
+                toKey = lastTimestamps[i];
+            }
+        }
+        for (int b = 0; b < blocks.size(); b++) {
+            long[] blockTimestamps = timestamps.get(b);
+            int first = 0;
+            while (first < blockTimestamps.length && blockTimestamps[first] < fromKey) {
+                first++;
+            }
+            int last = blockTimestamps.length - 1;
+            while (last >= first && blockTimestamps[last] > toKey) {
+                last--;
+            }
+            if (first > last) {
+                continue;
+            }
+            ZonedDateTime[] dates = new ZonedDateTime[last + 1];
+            for (int i = first; i <= last; i++) {
+                dates[i] = Instant.ofEpochMilli(blockTimestamps[i]).atZone(zoneId);
+            }
+            for (var entry : rDict.entrySet()) {
+                int column = getColumnIndex(entry.getKey());
+                if (column < 0 || column >= columnarStore.getColumnCount()) {
+                    continue;
+                }
+                double[] values = columnarStore.readColumn(blocks.get(b), column);
+                for (var tsInfo : entry.getValue()) {
+                    series.get(tsInfo).addSamples(dates, values, first, last + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Serves the requested columns from their pyramid, when it holds a level coarse enough for the requested
+     * interval that still provides more samples than the down-sampling threshold of the requesting chart.
+     *
+     * @return the columns that must be read from the columnar store.
+     */
+    private Map<String, List<TimeSeriesInfo>> fetchFromPyramids(ColumnarStore store,
+                                                                long begin,
+                                                                long end,
+                                                                int downSamplingThreshold,
+                                                                Map<String, List<TimeSeriesInfo>> rDict,
+                                                                Map<TimeSeriesInfo, TimeSeriesProcessor> series) {
+        var userPrefs = UserPreferences.getInstance();
+        if (!CsvFileAdapterPreferences.getInstance().pyramidEnabled.get() ||
+                !userPrefs.downSamplingEnabled.get() ||
+                store.reader.isEmpty()) {
+            return rDict;
+        }
+        // Pick a level that yields at least as many samples as the chart keeps, which down-sampling then reduces:
+        // buckets provide a single sample when averaging, and both their extremes otherwise.
+        boolean average = userPrefs.downSamplingAlgorithm.get() == DownSamplingAlgorithm.AVERAGE;
+        int minBuckets = average ? downSamplingThreshold : (downSamplingThreshold + 1) / 2;
+        Map<String, List<TimeSeriesInfo>> rawColumns = new HashMap<>();
+        for (var entry : rDict.entrySet()) {
+            int column = getColumnIndex(entry.getKey());
+            if (column < 0 || column >= store.reader.getColumnCount()) {
+                rawColumns.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            var level = store.getPyramid(column).getLevel(begin, end, minBuckets);
+            if (level == null) {
+                rawColumns.put(entry.getKey(), entry.getValue());
+                continue;
+            }
+            int first = level.getFirstIndex(begin);
+            int last = level.getLastIndex(end);
+            ZonedDateTime[] dates = new ZonedDateTime[(last - first + 1) * 2];
+            double[] values = new double[dates.length];
+            int n = 0;
+            for (int i = first; i <= last; i++) {
+                long minTimestamp = level.getMinTimestamp(i);
+                long maxTimestamp = level.getMaxTimestamp(i);
+                if (average || Double.isNaN(level.getMin(i))) {
+                    dates[n] = Instant.ofEpochMilli(level.getFirstTimestamp(i)).atZone(zoneId);
+                    values[n++] = level.getAverage(i);
+                } else if (minTimestamp == maxTimestamp) {
+                    dates[n] = Instant.ofEpochMilli(minTimestamp).atZone(zoneId);
+                    values[n++] = level.getMin(i);
+                } else if (minTimestamp < maxTimestamp) {
+                    dates[n] = Instant.ofEpochMilli(minTimestamp).atZone(zoneId);
+                    values[n++] = level.getMin(i);
+                    dates[n] = Instant.ofEpochMilli(maxTimestamp).atZone(zoneId);
+                    values[n++] = level.getMax(i);
+                } else {
+                    dates[n] = Instant.ofEpochMilli(maxTimestamp).atZone(zoneId);
+                    values[n++] = level.getMax(i);
+                    dates[n] = Instant.ofEpochMilli(minTimestamp).atZone(zoneId);
+                    values[n++] = level.getMin(i);
+                }
+            }
+            logger.trace(() -> "Column " + entry.getKey() + " served from pyramid level with " + level.getRowsPerBucket() + " rows per bucket");
+            for (var tsInfo : entry.getValue()) {
+                series.get(tsInfo).addSamples(dates, values, 0, n);
+            }
+        }
+        return rawColumns;
+    }
+
+    /**
+     * A columnar store along with the pyramids built from it, which is only closed once it has been released by
+     * the adapter and by all the fetches that acquired it.
+     */
+    private class ColumnarStore {
+        private final ColumnarFileReader reader;
+        private final Map<Integer, ColumnarPyramid> pyramids = new ConcurrentHashMap<>();
+        // Starts with the reference held by the adapter
+        private int references = 1;
+
+        private ColumnarStore(ColumnarFileReader reader) {
+            this.reader = reader;
+        }
+
+        private synchronized ColumnarStore acquire() {
+            references++;
+            return this;
+        }
+
+        private synchronized void release() {
+            if (--references == 0) {
+                pyramids.clear();
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    logger.error("Error closing columnar store for " + csvPath, e);
+                }
+            }
+        }
+
+        private ColumnarPyramid getPyramid(int column) {
+            return pyramids.computeIfAbsent(column, c -> {
+                try (Profiler ignored = Profiler.start("Building pyramid for column " + c + " of " + csvPath, logger::trace)) {
+                    return ColumnarPyramid.build(reader, c);
+                }
+            });
+        }
+    }
+
+    private int getColumnIndex(String label) {
+        try {
+            return Integer.parseInt(label) - 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    List<String> getHeaders() throws IOException, DataAdapterException {
+        if (headers == null) {
+            try (InputStream in = getCompressionType().decompress(Files.newInputStream(csvPath))) {
+                this.headers = csvDecoder.getDataColumnHeaders(in);
+            }
+        }
+        return headers;
     }
 
     private CsvDecoder decoderFactory(ZoneId zoneId, String encoding, String dateTimePattern, char delimiter) {
@@ -266,11 +805,12 @@ public class CsvFileAdapter extends BaseDataAdapter {
                 s -> ZonedDateTime.parse(s, DateTimeFormatter.ofPattern(dateTimePattern).withZone(zoneId)));
     }
 
-    private ConcurrentNavigableMap<Long, DataSample> buildSortedDataStore(InputStream in) throws IOException, DataAdapterException {
+    private ConcurrentNavigableMap<Long, DataSample> buildSortedDataStore(long from, long to) throws IOException, DataAdapterException {
         ConcurrentNavigableMap<Long, DataSample> dataStore = new ConcurrentSkipListMap<>();
-
         try (Profiler ignored = Profiler.start("Building seekable datastore for csv file", logger::trace)) {
-            csvDecoder.decode(in, headers, sample -> dataStore.put(sample.getTimeStamp().toInstant().toEpochMilli(), sample));
+            try (InputStream in = openDataStream(from, to)) {
+                csvDecoder.decode(in, getHeaders(), from == 0, sample -> dataStore.put(sample.getTimeStamp().toInstant().toEpochMilli(), sample));
+            }
         }
         return dataStore;
     }
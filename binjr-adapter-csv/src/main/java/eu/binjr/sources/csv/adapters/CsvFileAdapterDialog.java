@@ -27,6 +27,8 @@ import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.VPos;
 import javafx.scene.Node;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Control;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.GridPane;
@@ -47,9 +49,10 @@ import java.time.ZoneId;
  * @author Frederic Thevenet
  */
 public class CsvFileAdapterDialog extends DataAdapterDialog<Path> {
-    private final TextField dateFormatPattern = new TextField("yyyy-MM-dd HH:mm:ss");
-    private final TextField encodingField = new TextField("utf-8");
-    private final TextField separatorField = new TextField(",");
+    protected final TextField dateFormatPattern = new TextField("yyyy-MM-dd HH:mm:ss");
+    protected final TextField encodingField = new TextField("utf-8");
+    protected final TextField separatorField = new TextField(",");
+    protected final CheckBox followFileCheckBox = new CheckBox();
     private int pos = 2;
 
     /**
@@ -58,14 +61,26 @@ public class CsvFileAdapterDialog extends DataAdapterDialog<Path> {
      * @param owner the owner window for the dialog
      */
     public CsvFileAdapterDialog(Node owner) {
-        super(owner, Mode.PATH,"mostRecentCsvFiles");
-        this.setDialogHeaderText("Add a csv file");
+        this(owner, "mostRecentCsvFiles", "Add a csv file");
+    }
+
+    /**
+     * Initializes a new instance of the {@link CsvFileAdapterDialog} class.
+     *
+     * @param owner              the owner window for the dialog
+     * @param mostRecentListName the name of the list of most recently used sources.
+     * @param headerText         the text displayed in the header of the dialog.
+     */
+    protected CsvFileAdapterDialog(Node owner, String mostRecentListName, String headerText) {
+        super(owner, Mode.PATH, mostRecentListName);
+        this.setDialogHeaderText(headerText);
         addParamField(this.dateFormatPattern, "Date Format:");
         addParamField(this.encodingField, "Encoding:");
         addParamField(this.separatorField, "Separator:");
+        addParamField(this.followFileCheckBox, "Follow file:");
     }
 
-    private void addParamField(TextField field, String label) {
+    protected void addParamField(Control field, String label) {
         GridPane.setConstraints(field, 1, pos, 1, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS, new Insets(4, 0, 4, 0));
         Label tabsLabel = new Label(label);
         GridPane.setConstraints(tabsLabel, 0, pos, 1, 1, HPos.LEFT, VPos.CENTER, Priority.ALWAYS, Priority.ALWAYS, new Insets(4, 0, 4, 0));
@@ -79,6 +94,7 @@ public class CsvFileAdapterDialog extends DataAdapterDialog<Path> {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Open CSV file");
             fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Comma-separated values files", "*.csv"));
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Compressed comma-separated values files", "*.csv.gz", "*.gz", "*.zip", "*.csv.zst", "*.zst", "*.csv.xz", "*.xz"));
             fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("All files", "*.*"));
             Dialogs.getInitialDir(getMostRecentList()).ifPresent(fileChooser::setInitialDirectory);
             return fileChooser.showOpenDialog(Dialogs.getStage(owner));
@@ -100,6 +116,7 @@ public class CsvFileAdapterDialog extends DataAdapterDialog<Path> {
                 ZoneId.of(getSourceTimezone()),
                 encodingField.getText(),
                 dateFormatPattern.getText(),
-                separatorField.getText().charAt(0));
+                separatorField.getText().charAt(0),
+                followFileCheckBox.isSelected());
     }
 }
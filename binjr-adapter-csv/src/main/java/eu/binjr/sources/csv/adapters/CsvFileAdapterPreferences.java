@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.sources.csv.adapters;
+
+import eu.binjr.common.preferences.Preference;
+import eu.binjr.core.data.adapters.DataAdapterPreferences;
+
+import java.nio.file.Path;
+
+/**
+ * Defines the preferences associated with the CSV file adapter.
+ *
+ * @author Frederic Thevenet
+ */
+public class CsvFileAdapterPreferences extends DataAdapterPreferences {
+
+    /**
+     * True if a compact binary copy of the parsed data should be kept alongside CSV files, so that they do not
+     * need to be parsed again the next time they are opened, false otherwise.
+     */
+    public final Preference<Boolean> columnarCacheEnabled = booleanPreference("columnarCacheEnabled", true);
+
+    /**
+     * The location where binary copies of parsed CSV files are stored.
+     */
+    public final Preference<Path> columnarCacheLocation =
+            pathPreference("columnarCacheLocation", Path.of(System.getProperty("java.io.tmpdir"), "binjr", "csv_cache"));
+
+    /**
+     * True if columns read from the binary copy of a CSV file should be summarized into a multi-resolution pyramid,
+     * so that zoomed-out views can be served without reading every row, false otherwise.
+     */
+    public final Preference<Boolean> pyramidEnabled = booleanPreference("pyramidEnabled", true);
+
+    /**
+     * The maximum number of files from a CSV directory source that are kept loaded in memory at any one time.
+     */
+    public final Preference<Number> maxLoadedPartitions = integerPreference("maxLoadedPartitions", 64);
+
+    private CsvFileAdapterPreferences() {
+        super(CsvFileAdapter.class);
+    }
+
+    public static CsvFileAdapterPreferences getInstance() {
+        return CsvFileAdapterPreferencesHolder.instance;
+    }
+
+    private static class CsvFileAdapterPreferencesHolder {
+        private final static CsvFileAdapterPreferences instance = new CsvFileAdapterPreferences();
+    }
+}
@@ -38,6 +38,7 @@ public class CsvFileDataAdapterInfo extends BaseDataAdapterInfo {
                 AppEnvironment.HTTP_WWW_BINJR_EU,
                 CsvFileAdapter.class,
                 CsvFileAdapterDialog.class,
+                CsvFileAdapterPreferences.getInstance(),
                 SourceLocality.LOCAL);
     }
 }
@@ -18,10 +18,12 @@ package eu.binjr.sources.jrds.adapters;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
+import eu.binjr.common.cache.LRUMapCapacityBound;
 import eu.binjr.common.xml.XmlUtils;
 import eu.binjr.core.data.adapters.HttpDataAdapter;
 import eu.binjr.core.data.adapters.SerializedDataAdapter;
 import eu.binjr.core.data.adapters.TimeSeriesBinding;
+import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.codec.csv.CsvDecoder;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.FetchingDataFromAdapterException;
@@ -31,8 +33,10 @@ import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
 import eu.binjr.core.dialogs.Dialogs;
 import eu.binjr.sources.jrds.adapters.json.JsonJrdsItem;
 import eu.binjr.sources.jrds.adapters.json.JsonJrdsTree;
+import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TreeItem;
 import org.apache.http.HttpEntity;
 import org.apache.http.NameValuePair;
 import org.apache.http.StatusLine;
@@ -43,6 +47,7 @@ import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
+import org.eclipse.fx.ui.controls.tree.TreeItemPredicate;
 
 import javax.xml.bind.JAXB;
 import javax.xml.bind.annotation.XmlAccessType;
@@ -50,6 +55,7 @@ import javax.xml.bind.annotation.XmlAccessorType;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -58,7 +64,11 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * This class provides an implementation of {@link SerializedDataAdapter} for JRDS.
@@ -74,7 +84,15 @@ public class JrdsDataAdapter extends HttpDataAdapter {
     protected static final String TREE_VIEW_TAB_PARAM_NAME = "treeViewTab";
     private static final Logger logger = LogManager.getLogger(JrdsDataAdapter.class);
     private static final char DELIMITER = ',';
+    private static final int GRAPHDESC_CACHE_SIZE = 1024;
+    private static final int MAX_CONCURRENT_GRAPHDESC_REQUESTS = 8;
     private final JrdsSeriesBindingFactory bindingFactory = new JrdsSeriesBindingFactory();
+    private final Map<String, Graphdesc> graphdescCache = Collections.synchronizedMap(new LRUMapCapacityBound<>(GRAPHDESC_CACHE_SIZE));
+    // Branches whose children have yet to be attached; populated while the tree is built on a background task, then
+    // accessed from the UI thread. Loaders only hold weak references to their branch, so that entries for the
+    // branches of a discarded tree can be reclaimed.
+    private final Map<TreeItem<TimeSeriesBinding>, ChildNodesLoader> unloadedBranches = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<TreeItem<TimeSeriesBinding>, GraphDescLoader> unloadedGraphs = Collections.synchronizedMap(new WeakHashMap<>());
     private CsvDecoder decoder;
     private String filter;
     private ZoneId zoneId;
@@ -219,6 +237,68 @@ public class JrdsDataAdapter extends HttpDataAdapter {
 
     //endregion
 
+    @Override
+    public CompletableFuture<Void> prefetch(Collection<TreeItem<TimeSeriesBinding>> treeItems) {
+        var loaders = new ArrayList<GraphDescLoader>();
+        treeItems.forEach(item -> collectUnloadedGraphs(item, loaders));
+        if (loaders.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        var paths = loaders.stream().map(loader -> loader.path).distinct().collect(Collectors.toList());
+        logger.debug(() -> "Prefetching " + paths.size() + " graph descriptors");
+        // Keep the descriptors for the whole selection until they are attached, as it may hold more graphs than
+        // the cache can.
+        Map<String, Graphdesc> descriptors = new ConcurrentHashMap<>(paths.size());
+        // Bound the number of concurrent requests to the server: each task fetches descriptors from a shared queue.
+        var queue = new ConcurrentLinkedQueue<>(paths);
+        return CompletableFuture.allOf(IntStream.range(0, Math.min(paths.size(), MAX_CONCURRENT_GRAPHDESC_REQUESTS))
+                .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                    for (String path = queue.poll(); path != null; path = queue.poll()) {
+                        try {
+                            var graphdesc = getGraphDescriptor(path);
+                            if (graphdesc != null) {
+                                descriptors.put(path, graphdesc);
+                            }
+                        } catch (Exception e) {
+                            // Errors are reported to the user when the branch gets expanded.
+                            logger.debug("Failed to prefetch graph descriptor for " + path, e);
+                        }
+                    }
+                }, AsyncTaskManager.getInstance()::submitSubTask))
+                .toArray(CompletableFuture[]::new))
+                .thenCompose(v -> {
+                    var attached = new CompletableFuture<Void>();
+                    Platform.runLater(() -> {
+                        try {
+                            for (var loader : loaders) {
+                                var graphdesc = descriptors.get(loader.path);
+                                if (graphdesc != null) {
+                                    loader.attach(graphdesc);
+                                }
+                            }
+                        } finally {
+                            attached.complete(null);
+                        }
+                    });
+                    return attached;
+                });
+    }
+
+    private void collectUnloadedGraphs(TreeItem<TimeSeriesBinding> item, List<GraphDescLoader> loaders) {
+        var loader = unloadedBranches.get(item);
+        if (loader != null) {
+            loader.load();
+        }
+        var graphLoader = unloadedGraphs.get(item);
+        if (graphLoader != null) {
+            loaders.add(graphLoader);
+        } else {
+            for (var child : item.getChildren()) {
+                collectUnloadedGraphs(child, loaders);
+            }
+        }
+    }
+
     public Collection<String> discoverFilters() throws DataAdapterException, URISyntaxException {
         try {
             JsonJrdsTree t = gson.fromJson(getJsonTree(treeViewTab.getCommand(), treeViewTab.getArgument()), JsonJrdsTree.class);
@@ -240,15 +320,17 @@ public class JrdsDataAdapter extends HttpDataAdapter {
             newBranch.expandedProperty().addListener(new FilteredViewListener(n, newBranch));
         } else {
             if (n.children != null) {
-                for (JsonJrdsItem.JsonTreeRef ref : n.children) {
-                    attachNode(newBranch, ref._reference, nodes);
-                }
+                // add a dummy node so that the branch can be expanded
+                newBranch.getInternalChildren().add(new FilterableTreeItem<>(null));
+                // children are only attached once the branch is expanded or searched, to avoid building
+                // items for the whole tree upfront.
+                unloadedBranches.put(newBranch, new ChildNodesLoader(n, newBranch, nodes).register());
             } else {
                 // add a dummy node so that the branch can be expanded
                 newBranch.getInternalChildren().add(new FilterableTreeItem<>(null));
                 // add a listener so that bindings for individual datastore are added lazily to avoid
                 // dozens of individual call to "graphdesc" when the tree is built.
-                newBranch.expandedProperty().addListener(new GraphDescListener(currentPath, newBranch, tree));
+                unloadedGraphs.put(newBranch, new GraphDescLoader(currentPath, newBranch, tree.getValue().getTreeHierarchy()).register());
             }
         }
         tree.getInternalChildren().add(newBranch);
@@ -272,7 +354,7 @@ public class JrdsDataAdapter extends HttpDataAdapter {
         if (argName != null && argValue != null && argValue.trim().length() > 0) {
             params.add(new BasicNameValuePair(argName, argValue));
         }
-        String entityString = doHttpGet(craftRequestUri("jsontree", params), response -> {
+        String entityString = doConditionalHttpGet(craftRequestUri("jsontree", params), response -> {
             var entity = response.getEntity();
             try {
                 if ("application/json".equalsIgnoreCase(ContentType.getOrDefault(entity).getMimeType())) {
@@ -292,9 +374,20 @@ public class JrdsDataAdapter extends HttpDataAdapter {
 
 
     private Graphdesc getGraphDescriptor(String id) throws DataAdapterException {
+        Graphdesc graphdesc = graphdescCache.get(id);
+        if (graphdesc == null) {
+            graphdesc = fetchGraphDescriptor(id);
+            if (graphdesc != null) {
+                graphdescCache.put(id, graphdesc);
+            }
+        }
+        return graphdesc;
+    }
+
+    private Graphdesc fetchGraphDescriptor(String id) throws DataAdapterException {
         URI requestUri = craftRequestUri("graphdesc", new BasicNameValuePair("id", id));
 
-        return doHttpGet(requestUri, response -> {
+        return doConditionalHttpGet(requestUri, response -> {
             StatusLine statusLine = response.getStatusLine();
             if (statusLine.getStatusCode() == 404) {
                 // This is probably an older version of JRDS that doesn't provide the graphdesc service,
@@ -343,36 +436,157 @@ public class JrdsDataAdapter extends HttpDataAdapter {
         }
     }
 
-    private class GraphDescListener implements ChangeListener<Boolean> {
-        private final String currentPath;
-        private final FilterableTreeItem<TimeSeriesBinding> newBranch;
-        private final FilterableTreeItem<TimeSeriesBinding> tree;
+    private class GraphDescLoader {
+        private final String path;
+        private final String parentHierarchy;
+        private final WeakReference<FilterableTreeItem<TimeSeriesBinding>> branchRef;
+        private boolean fetching = false;
+        private boolean loaded = false;
+        private final ChangeListener<Boolean> expandedListener = (observable, oldValue, newValue) -> {
+            if (newValue) {
+                load();
+            }
+        };
 
-        public GraphDescListener(String currentPath, FilterableTreeItem<TimeSeriesBinding> newBranch, FilterableTreeItem<TimeSeriesBinding> tree) {
-            this.currentPath = currentPath;
-            this.newBranch = newBranch;
-            this.tree = tree;
+        private GraphDescLoader(String path, FilterableTreeItem<TimeSeriesBinding> branch, String parentHierarchy) {
+            this.path = path;
+            this.branchRef = new WeakReference<>(branch);
+            this.parentHierarchy = parentHierarchy;
         }
 
-        @Override
-        public void changed(ObservableValue<? extends Boolean> observable, Boolean oldValue, Boolean newValue) {
-            if (newValue) {
+        private GraphDescLoader register() {
+            var branch = branchRef.get();
+            if (branch != null) {
+                branch.expandedProperty().addListener(expandedListener);
+            }
+            return this;
+        }
+
+        private void load() {
+            var cached = graphdescCache.get(path);
+            if (cached != null) {
+                attach(cached);
+                return;
+            }
+            if (fetching) {
+                return;
+            }
+            fetching = true;
+            // Don't hold the UI thread while the descriptor is retrieved from the server.
+            AsyncTaskManager.getInstance().submitSubTask(() -> {
                 try {
-                    Graphdesc graphdesc = getGraphDescriptor(currentPath);
-                    newBranch.setValue(bindingFactory.of(tree.getValue().getTreeHierarchy(), newBranch.getValue().getLegend(), graphdesc, currentPath, JrdsDataAdapter.this));
-                    for (int i = 0; i < graphdesc.seriesDescList.size(); i++) {
-                        String graphType = graphdesc.seriesDescList.get(i).graphType;
-                        if (!"none".equalsIgnoreCase(graphType) && !"comment".equalsIgnoreCase(graphType)) {
-                            newBranch.getInternalChildren().add(new FilterableTreeItem<>(bindingFactory.of(newBranch.getValue().getTreeHierarchy(), graphdesc, i, currentPath, JrdsDataAdapter.this)));
-                        }
+                    var graphdesc = getGraphDescriptor(path);
+                    if (graphdesc == null) {
+                        throw new DataAdapterException("No graph description returned for " + path);
                     }
-                    //remove dummy node
-                    newBranch.getInternalChildren().remove(0);
-                    // remove the listener so it isn't executed next time node is expanded
-                    newBranch.expandedProperty().removeListener(this);
+                    Platform.runLater(() -> attach(graphdesc));
                 } catch (Exception e) {
-                    Dialogs.notifyException("Failed to retrieve graph description", e);
+                    Platform.runLater(() -> {
+                        fetching = false;
+                        Dialogs.notifyException("Failed to retrieve graph description", e);
+                    });
+                }
+            });
+        }
+
+        private void attach(Graphdesc graphdesc) {
+            var branch = branchRef.get();
+            if (branch == null || loaded) {
+                return;
+            }
+            loaded = true;
+            // remove the listener so it isn't executed next time node is expanded
+            branch.expandedProperty().removeListener(expandedListener);
+            unloadedGraphs.remove(branch);
+            branch.setValue(bindingFactory.of(parentHierarchy, branch.getValue().getLegend(), graphdesc, path, JrdsDataAdapter.this));
+            for (int i = 0; i < graphdesc.seriesDescList.size(); i++) {
+                String graphType = graphdesc.seriesDescList.get(i).graphType;
+                if (!"none".equalsIgnoreCase(graphType) && !"comment".equalsIgnoreCase(graphType)) {
+                    branch.getInternalChildren().add(new FilterableTreeItem<>(bindingFactory.of(branch.getValue().getTreeHierarchy(), graphdesc, i, path, JrdsDataAdapter.this)));
+                }
+            }
+            //remove dummy node
+            branch.getInternalChildren().remove(0);
+        }
+    }
+
+    private class ChildNodesLoader {
+        private final JsonJrdsItem n;
+        private final WeakReference<FilterableTreeItem<TimeSeriesBinding>> branchRef;
+        private final Map<String, JsonJrdsItem> nodes;
+        private boolean loaded = false;
+        private final ChangeListener<Boolean> expandedListener = (observable, oldValue, newValue) -> {
+            if (newValue) {
+                load();
+            }
+        };
+        private final ChangeListener<TreeItemPredicate<TimeSeriesBinding>> predicateListener = (observable, oldValue, newValue) -> {
+            // Nodes that have not been attached yet could not be matched by a filter otherwise; only attach
+            // those of the branches that hold a match, rather than the whole tree.
+            if (newValue != null && hasMatch(newValue)) {
+                load();
+            }
+        };
+
+        private ChildNodesLoader(JsonJrdsItem n, FilterableTreeItem<TimeSeriesBinding> branch, Map<String, JsonJrdsItem> nodes) {
+            this.n = n;
+            this.branchRef = new WeakReference<>(branch);
+            this.nodes = nodes;
+        }
+
+        private ChildNodesLoader register() {
+            var branch = branchRef.get();
+            if (branch != null) {
+                branch.expandedProperty().addListener(expandedListener);
+                branch.predicateProperty().addListener(predicateListener);
+            }
+            return this;
+        }
+
+        private boolean hasMatch(TreeItemPredicate<TimeSeriesBinding> predicate) {
+            var branch = branchRef.get();
+            return branch != null && hasMatch(n, branch.getValue().getTreeHierarchy(), branch, predicate);
+        }
+
+        private boolean hasMatch(JsonJrdsItem item,
+                                 String hierarchy,
+                                 FilterableTreeItem<TimeSeriesBinding> branch,
+                                 TreeItemPredicate<TimeSeriesBinding> predicate) {
+            for (JsonJrdsItem.JsonTreeRef ref : item.children) {
+                JsonJrdsItem child = nodes.get(ref._reference);
+                if (child == null) {
+                    continue;
+                }
+                var binding = bindingFactory.of(hierarchy, child.name, normalizeId(child.id), JrdsDataAdapter.this);
+                if (predicate.test(branch, binding)) {
+                    return true;
+                }
+                if (child.children != null && hasMatch(child, binding.getTreeHierarchy(), branch, predicate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void load() {
+            var branch = branchRef.get();
+            // A match may expand the branch, and thus load it, while its predicate is being evaluated.
+            if (branch == null || loaded) {
+                return;
+            }
+            loaded = true;
+            // remove the listeners so that children are only attached once
+            branch.expandedProperty().removeListener(expandedListener);
+            branch.predicateProperty().removeListener(predicateListener);
+            unloadedBranches.remove(branch);
+            try {
+                //remove dummy node
+                branch.getInternalChildren().clear();
+                for (JsonJrdsItem.JsonTreeRef ref : n.children) {
+                    attachNode(branch, ref._reference, nodes);
                 }
+            } catch (Exception e) {
+                Dialogs.notifyException("Failed to build tree view", e);
             }
         }
     }
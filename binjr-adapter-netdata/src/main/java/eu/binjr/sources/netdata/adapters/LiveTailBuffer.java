@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.sources.netdata.adapters;
+
+import java.nio.charset.StandardCharsets;
+import java.util.TreeMap;
+
+/**
+ * Holds the CSV rows last retrieved from a Netdata chart, so that a sliding time window can be kept up to date by
+ * only requesting the rows that were added since the last update.
+ *
+ * @author Frederic Thevenet
+ */
+class LiveTailBuffer {
+    private final String query;
+    private final long span;
+    private final String header;
+    private final TreeMap<Long, String> rows = new TreeMap<>();
+    private final long step;
+    private long after;
+    private long before;
+
+    /**
+     * Initializes a new instance of the {@link LiveTailBuffer} class from a complete response.
+     *
+     * @param query     the query parameters (save for the time interval) used to retrieve the data.
+     * @param after     the start of the time interval of the request, in seconds since the epoch.
+     * @param before    the end of the time interval of the request, in seconds since the epoch.
+     * @param span      the duration of the time window the request was made for, in seconds.
+     * @param payload   the CSV formatted response.
+     * @param delimiter the CSV delimiter.
+     */
+    LiveTailBuffer(String query, long after, long before, long span, byte[] payload, char delimiter) {
+        this.query = query;
+        this.after = after;
+        this.before = before;
+        this.span = span;
+        this.header = parse(payload, delimiter);
+        this.step = rows.size() > 1 ? Math.max(1, Math.round((double) (rows.lastKey() - rows.firstKey()) / (rows.size() - 1))) : 1;
+    }
+
+    /**
+     * Returns true if the specified request can be served by extending the buffer, false otherwise.
+     *
+     * @param query  the query parameters (save for the time interval) of the request.
+     * @param after  the start of the time interval of the request, in seconds since the epoch.
+     * @param before the end of the time interval of the request, in seconds since the epoch.
+     * @param span   the duration of the time window the request is made for, in seconds.
+     * @return true if the specified request can be served by extending the buffer, false otherwise.
+     */
+    synchronized boolean canExtend(String query, long after, long before, long span) {
+        return this.query.equals(query) &&
+                !rows.isEmpty() &&
+                after >= this.after &&
+                before >= this.before &&
+                // a window of a different size is likely to be grouped differently server-side
+                Math.abs(span - this.span) <= step;
+    }
+
+    /**
+     * Returns the timestamp of the most recent row, in seconds since the epoch.
+     *
+     * @return the timestamp of the most recent row, in seconds since the epoch.
+     */
+    synchronized long getLastTimestamp() {
+        return rows.lastKey();
+    }
+
+    /**
+     * Returns the average interval between two rows, in seconds.
+     *
+     * @return the average interval between two rows, in seconds.
+     */
+    long getStep() {
+        return step;
+    }
+
+    /**
+     * Adds the rows from a response to the buffer and evicts those that precede the new time interval, provided
+     * the buffer can still be extended to the specified request.
+     * <p>The buffer may have been moved past the request by a concurrent update since {@link #canExtend} was
+     * checked, so both are done atomically here.</p>
+     *
+     * @param query     the query parameters (save for the time interval) of the request.
+     * @param after     the start of the new time interval, in seconds since the epoch.
+     * @param before    the end of the new time interval, in seconds since the epoch.
+     * @param span      the duration of the time window the request is made for, in seconds.
+     * @param payload   the CSV formatted response containing the rows to add, or null if there are none.
+     * @param delimiter the CSV delimiter.
+     * @return the CSV formatted content of the buffer, or null if it cannot be extended to the specified request.
+     */
+    synchronized byte[] extend(String query, long after, long before, long span, byte[] payload, char delimiter) {
+        if (!canExtend(query, after, before, span)) {
+            return null;
+        }
+        if (payload != null) {
+            parse(payload, delimiter);
+        }
+        rows.headMap(after).clear();
+        this.after = after;
+        this.before = before;
+        var sb = new StringBuilder(header).append('\n');
+        // Netdata returns the most recent rows first
+        rows.descendingMap().values().forEach(row -> sb.append(row).append('\n'));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private String parse(byte[] payload, char delimiter) {
+        String header = null;
+        for (var line : new String(payload, StandardCharsets.UTF_8).split("\n")) {
+            line = line.strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (header == null) {
+                header = line;
+                continue;
+            }
+            int pos = line.indexOf(delimiter);
+            try {
+                rows.put(Long.parseLong(line.substring(0, pos < 0 ? line.length() : pos).replace("\"", "")), line);
+            } catch (NumberFormatException e) {
+                // not a data row
+            }
+        }
+        return header != null ? header : "";
+    }
+}
@@ -17,6 +17,7 @@
 package eu.binjr.sources.netdata.adapters;
 
 import com.google.gson.Gson;
+import eu.binjr.common.cache.LRUMapCapacityBound;
 import eu.binjr.common.javafx.controls.TimeRange;
 import eu.binjr.core.data.adapters.*;
 import eu.binjr.core.data.codec.Decoder;
@@ -42,9 +43,11 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A {@link eu.binjr.core.data.adapters.DataAdapter} implementation capable of consuming data from the
@@ -55,11 +58,13 @@ import java.util.TreeMap;
 public class NetdataAdapter extends HttpDataAdapter {
     private static final Logger logger = LogManager.getLogger(NetdataAdapter.class);
     private static final char DELIMITER = ',';
+    private static final int MAX_LIVE_TAIL_BUFFERS = 64;
     private ZoneId zoneId;
     private final Gson jsonParser;
     private Decoder decoder;
     private UserPreferences userPrefs = UserPreferences.getInstance();
     private NetdataAdapterPreferences adapterPrefs = (NetdataAdapterPreferences) getAdapterInfo().getPreferences();
+    private final Map<String, LiveTailBuffer> liveTails = Collections.synchronizedMap(new LRUMapCapacityBound<>(MAX_LIVE_TAIL_BUFFERS));
 
     /**
      * Initialises a new instance of the {@link NetdataAdapter} class.
@@ -91,21 +96,113 @@ public class NetdataAdapter extends HttpDataAdapter {
 
     @Override
     protected URI craftFetchUri(String path, Instant begin, Instant end) throws DataAdapterException {
-        var params = new ArrayList<NameValuePair>();
-        params.add(UriParameter.of("points",
-                (userPrefs.downSamplingEnabled.get() && !adapterPrefs.disableServerSideDownsampling.get()
-                        ? userPrefs.downSamplingThreshold.get() : adapterPrefs.maxSamplesAllowed.get())));
-        params.add(UriParameter.of("group", adapterPrefs.groupingMethod.get()));
-        params.add(UriParameter.of("gtime", adapterPrefs.groupingTime.get()));
-        if (adapterPrefs.disableTimeFrameAlignment.get()) {
-            params.add(UriParameter.of("options", "unaligned"));
+        return craftFetchUri(path, begin, end, userPrefs.downSamplingThreshold.get().intValue());
+    }
+
+    @Override
+    protected URI craftFetchUri(String path, Instant begin, Instant end, int downSamplingThreshold) throws DataAdapterException {
+        return craftFetchUri(path,
+                getQueryParams(downSamplingThreshold),
+                begin.getEpochSecond() - adapterPrefs.fetchReadBehindSeconds.get().intValue(),
+                end.getEpochSecond() + adapterPrefs.fetchReadAheadSeconds.get().intValue());
+    }
+
+    @Override
+    protected byte[] onCacheMiss(String path, Instant begin, Instant end, int downSamplingThreshold) throws DataAdapterException {
+        if (!adapterPrefs.liveTailEnabled.get()) {
+            return super.onCacheMiss(path, begin, end, downSamplingThreshold);
         }
-        params.add(UriParameter.of("format", "csv"));
-        params.add(UriParameter.of("options", "seconds"));
-        params.add(UriParameter.of("after", begin.getEpochSecond() - adapterPrefs.fetchReadBehindSeconds.get().intValue()));
-        params.add(UriParameter.of("before", end.getEpochSecond() + adapterPrefs.fetchReadAheadSeconds.get().intValue()));
+        var query = getQueryParams(downSamplingThreshold);
+        long after = begin.getEpochSecond() - adapterPrefs.fetchReadBehindSeconds.get().intValue();
+        long before = end.getEpochSecond() + adapterPrefs.fetchReadAheadSeconds.get().intValue();
+        long span = end.getEpochSecond() - begin.getEpochSecond();
+        var tail = liveTails.get(path);
+        if (tail == null || !tail.canExtend(query.toString(), after, before, span)) {
+            return fetchNewTail(path, begin, end, downSamplingThreshold, query.toString(), after, before, span);
+        }
+        long lastTimestamp = tail.getLastTimestamp();
+        Chart chart = doHttpGet(craftChartUri(path), response ->
+                jsonParser.fromJson(EntityUtils.toString(response.getEntity()), Chart.class));
+        byte[] payload = null;
+        if (hasNewEntries(chart, lastTimestamp)) {
+            payload = doHttpGet(craftTailUri(path, query, tail, before), BYTE_ARRAY_RESPONSE_HANDLER);
+        } else {
+            logger.trace(() -> "No new entries for " + path + " since " + lastTimestamp);
+        }
+        var extended = tail.extend(query.toString(), after, before, span, payload, DELIMITER);
+        if (extended == null) {
+            logger.trace(() -> "Live tail for " + path + " was moved past the requested window");
+            return fetchNewTail(path, begin, end, downSamplingThreshold, query.toString(), after, before, span);
+        }
+        return extended;
+    }
 
-        return craftRequestUri(path, params);
+    @Override
+    protected CompletableFuture<byte[]> onCacheMissAsync(String path, Instant begin, Instant end, int downSamplingThreshold) {
+        if (!adapterPrefs.liveTailEnabled.get()) {
+            return super.onCacheMissAsync(path, begin, end, downSamplingThreshold);
+        }
+        var query = getQueryParams(downSamplingThreshold);
+        long after = begin.getEpochSecond() - adapterPrefs.fetchReadBehindSeconds.get().intValue();
+        long before = end.getEpochSecond() + adapterPrefs.fetchReadAheadSeconds.get().intValue();
+        long span = end.getEpochSecond() - begin.getEpochSecond();
+        var tail = liveTails.get(path);
+        if (tail == null || !tail.canExtend(query.toString(), after, before, span)) {
+            return fetchNewTailAsync(path, begin, end, downSamplingThreshold, query.toString(), after, before, span);
+        }
+        try {
+            long lastTimestamp = tail.getLastTimestamp();
+            var tailUri = craftTailUri(path, query, tail, before);
+            return doHttpGetAsync(craftChartUri(path), response ->
+                    jsonParser.fromJson(EntityUtils.toString(response.getEntity()), Chart.class))
+                    .thenCompose(chart -> {
+                        if (!hasNewEntries(chart, lastTimestamp)) {
+                            logger.trace(() -> "No new entries for " + path + " since " + lastTimestamp);
+                            return CompletableFuture.completedFuture((byte[]) null);
+                        }
+                        return doHttpGetAsync(tailUri, BYTE_ARRAY_RESPONSE_HANDLER);
+                    })
+                    .thenCompose(payload -> {
+                        var extended = tail.extend(query.toString(), after, before, span, payload, DELIMITER);
+                        if (extended == null) {
+                            logger.trace(() -> "Live tail for " + path + " was moved past the requested window");
+                            return fetchNewTailAsync(path, begin, end, downSamplingThreshold, query.toString(), after, before, span);
+                        }
+                        return CompletableFuture.completedFuture(extended);
+                    });
+        } catch (DataAdapterException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private byte[] fetchNewTail(String path, Instant begin, Instant end, int downSamplingThreshold, String query, long after, long before, long span) throws DataAdapterException {
+        var payload = super.onCacheMiss(path, begin, end, downSamplingThreshold);
+        liveTails.put(path, new LiveTailBuffer(query, after, before, span, payload, DELIMITER));
+        return payload;
+    }
+
+    private CompletableFuture<byte[]> fetchNewTailAsync(String path, Instant begin, Instant end, int downSamplingThreshold, String query, long after, long before, long span) {
+        return super.onCacheMissAsync(path, begin, end, downSamplingThreshold).thenApply(payload -> {
+            liveTails.put(path, new LiveTailBuffer(query, after, before, span, payload, DELIMITER));
+            return payload;
+        });
+    }
+
+    @Override
+    protected boolean isStreamingEnabled() {
+        // Live tail needs the complete response to update the tail buffer.
+        return super.isStreamingEnabled() && !adapterPrefs.liveTailEnabled.get();
+    }
+
+    @Override
+    protected boolean isPayloadDownSampled() {
+        return userPrefs.downSamplingEnabled.get() && !adapterPrefs.disableServerSideDownsampling.get();
+    }
+
+    @Override
+    public void close() {
+        liveTails.clear();
+        super.close();
     }
 
     @Override
@@ -120,7 +217,7 @@ public class NetdataAdapter extends HttpDataAdapter {
 
     @Override
     public FilterableTreeItem<TimeSeriesBinding> getBindingTree() throws DataAdapterException {
-        var chartSummary = doHttpGet(
+        var chartSummary = doConditionalHttpGet(
                 craftRequestUri(ChartSummary.ENDPOINT),
                 response -> jsonParser.fromJson(EntityUtils.toString(response.getEntity()), ChartSummary.class)
         );
@@ -174,7 +271,7 @@ public class NetdataAdapter extends HttpDataAdapter {
 
     @Override
     public TimeRange getInitialTimeRange(String path, List<TimeSeriesInfo> seriesInfo) throws DataAdapterException {
-        Chart chart = doHttpGet(craftRequestUri(path.replace("/data?", "/chart?")), response ->
+        Chart chart = doHttpGet(craftChartUri(path), response ->
                 jsonParser.fromJson(EntityUtils.toString(response.getEntity()), Chart.class)
         );
         return TimeRange.of(ZonedDateTime.ofInstant(Instant.ofEpochSecond(chart.getFirstEntry().longValue()), zoneId),
@@ -192,6 +289,47 @@ public class NetdataAdapter extends HttpDataAdapter {
                 .append(")").toString();
     }
 
+    private List<NameValuePair> getQueryParams(int downSamplingThreshold) {
+        var params = new ArrayList<NameValuePair>();
+        params.add(UriParameter.of("points",
+                (isPayloadDownSampled() ? downSamplingThreshold : adapterPrefs.maxSamplesAllowed.get())));
+        params.add(UriParameter.of("group", adapterPrefs.groupingMethod.get()));
+        params.add(UriParameter.of("gtime", adapterPrefs.groupingTime.get()));
+        if (adapterPrefs.disableTimeFrameAlignment.get()) {
+            params.add(UriParameter.of("options", "unaligned"));
+        }
+        params.add(UriParameter.of("format", "csv"));
+        params.add(UriParameter.of("options", "seconds"));
+        return params;
+    }
+
+    private URI craftFetchUri(String path, List<NameValuePair> query, long after, long before) throws DataAdapterException {
+        var params = new ArrayList<>(query);
+        params.add(UriParameter.of("after", after));
+        params.add(UriParameter.of("before", before));
+        return craftRequestUri(path, params);
+    }
+
+    private URI craftTailUri(String path, List<NameValuePair> query, LiveTailBuffer tail, long before) throws DataAdapterException {
+        // Re-request the last known row, which may have been incomplete, and keep the same resolution as the
+        // rows already held in the buffer.
+        long after = tail.getLastTimestamp();
+        var params = new ArrayList<NameValuePair>();
+        for (var p : query) {
+            params.add(p.getName().equals("points") ?
+                    UriParameter.of("points", Math.max(1, (before - after + tail.getStep() - 1) / tail.getStep())) : p);
+        }
+        return craftFetchUri(path, params, after, before);
+    }
+
+    private URI craftChartUri(String path) throws DataAdapterException {
+        return craftRequestUri(path.replace("/data?", "/chart?"));
+    }
+
+    private boolean hasNewEntries(Chart chart, long lastTimestamp) {
+        return chart.getLastEntry() == null || chart.getLastEntry().longValue() > lastTimestamp;
+    }
+
     private CsvDecoder buildDecoder(ZoneId zoneId) {
         return new CsvDecoder(getEncoding(), DELIMITER,
                 DoubleTimeSeriesProcessor::new,
@@ -58,6 +58,12 @@ public class NetdataAdapterPreferences extends DataAdapterPreferences {
      */
     public Preference<Number> maxSamplesAllowed = integerPreference("maxSamplesAllowed", 10000);
 
+    /**
+     * Set to true to only request the samples added since the last update when a chart's time window slides forward,
+     * rather than the whole window. Polls are skipped altogether when Netdata reports no new entries for a chart.
+     */
+    public final Preference<Boolean> liveTailEnabled = booleanPreference("liveTailEnabled", false);
+
     private NetdataAdapterPreferences() {
         super(NetdataAdapter.class);
     }
@@ -18,9 +18,12 @@ package eu.binjr.sources.rrd4j.adapters;
 
 import eu.binjr.common.function.CheckedFunction;
 import eu.binjr.common.function.CheckedLambdas;
+import eu.binjr.common.io.IOUtils;
 import eu.binjr.common.javafx.controls.TimeRange;
+import eu.binjr.common.logging.Profiler;
 import eu.binjr.core.data.adapters.BaseDataAdapter;
 import eu.binjr.core.data.adapters.TimeSeriesBinding;
+import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.FetchingDataFromAdapterException;
 import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
@@ -28,7 +31,7 @@ import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.ChartType;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
 import eu.binjr.core.data.workspace.UnitPrefixes;
-import javafx.scene.chart.XYChart;
+import eu.binjr.core.preferences.UserPreferences;
 import javafx.scene.control.TreeItem;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -38,6 +41,7 @@ import org.rrd4j.core.*;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -45,6 +49,8 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
@@ -55,9 +61,10 @@ import java.util.stream.Collectors;
  */
 public class Rrd4jFileAdapter extends BaseDataAdapter {
     private static final Logger logger = LogManager.getLogger(Rrd4jFileAdapter.class);
-    private final RrdDbPool rrdDbMap;
+    private final RrdDbCache rrdDbMap;
     private List<Path> rrdPaths;
-    private List<Path> tempPathToCollect = new ArrayList<>();
+    private final List<Path> tempPathToCollect = Collections.synchronizedList(new ArrayList<>());
+    private final RrdBackendFactory backendFactory;
     private final Rrd4jFileAdapterPreferences prefs =Rrd4jFileAdapterPreferences.getInstance();
 
     /**
@@ -75,9 +82,9 @@ public class Rrd4jFileAdapter extends BaseDataAdapter {
     public Rrd4jFileAdapter(List<Path> rrdPath) {
         this.rrdPaths = rrdPath;
         Path a = Paths.get("");
-        var factory =   RrdBackendFactory.getFactory(prefs.rrd4jBackend.get().toString());
-        logger.debug(()-> "Rrd backend factory= " + factory.getName());
-        rrdDbMap  = new RrdDbPool(factory);
+        this.backendFactory = RrdBackendFactory.getFactory(prefs.rrd4jBackend.get().toString());
+        logger.debug(()-> "Rrd backend factory= " + backendFactory.getName());
+        rrdDbMap = new RrdDbCache(uri -> openRrdDb(Path.of(uri)), () -> prefs.maxOpenFiles.get().intValue());
     }
 
     @Override
@@ -92,54 +99,70 @@ public class Rrd4jFileAdapter extends BaseDataAdapter {
                         ChartType.STACKED,
                         "-",
                         "/" + getSourceName(), this));
+        // Open and inspect rrd files in parallel, then attach them to the tree in their original order.
+        List<CompletableFuture<FilterableTreeItem<TimeSeriesBinding>>> nodes = new ArrayList<>(rrdPaths.size());
         for (Path rrdPath : rrdPaths) {
-            try {
-                String rrdFileName = rrdPath.getFileName().toString();
-                var rrdNode = new FilterableTreeItem<>(new TimeSeriesBinding(
-                        rrdFileName,
-                        rrdFileName,
+            nodes.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return buildRrdNode(rrdPath, tree);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, AsyncTaskManager.getInstance()::submitSubTask));
+        }
+        try {
+            for (var node : nodes) {
+                tree.getInternalChildren().add(node.join());
+            }
+        } catch (CompletionException e) {
+            throw new DataAdapterException("Failed to open rrd db", e.getCause());
+        }
+        return tree;
+    }
+
+    private FilterableTreeItem<TimeSeriesBinding> buildRrdNode(Path rrdPath, FilterableTreeItem<TimeSeriesBinding> tree) throws IOException {
+        String rrdFileName = rrdPath.getFileName().toString();
+        var rrdNode = new FilterableTreeItem<>(new TimeSeriesBinding(
+                rrdFileName,
+                rrdFileName,
+                null,
+                rrdFileName,
+                UnitPrefixes.METRIC,
+                ChartType.STACKED,
+                "-",
+                tree.getValue().getTreeHierarchy() + "/" + rrdFileName,
+                this));
+        try (var handle = rrdDbMap.acquire(rrdPath.toUri())) {
+            RrdDb rrd = handle.get();
+            for (ConsolFun consolFun : Arrays.stream(rrd.getRrdDef().getArcDefs())
+                    .map(ArcDef::getConsolFun)
+                    .collect(Collectors.toSet())) {
+                var consolFunNode = new FilterableTreeItem<>(new TimeSeriesBinding(
+                        consolFun.toString(),
+                        rrdPath.resolve(consolFun.toString()).toString(),
                         null,
-                        rrdFileName,
+                        consolFun.toString(),
                         UnitPrefixes.METRIC,
                         ChartType.STACKED,
                         "-",
-                        tree.getValue().getTreeHierarchy() + "/" + rrdFileName,
+                        rrdNode.getValue().getTreeHierarchy() + "/" + consolFun.toString(),
                         this));
-                RrdDb rrd = rrdDbMap.requestRrdDb(rrdPath.toUri());
-
-                for (ConsolFun consolFun : Arrays.stream(rrd.getRrdDef().getArcDefs())
-                        .map(ArcDef::getConsolFun)
-                        .collect(Collectors.toSet())) {
-                    var consolFunNode = new FilterableTreeItem<>(new TimeSeriesBinding(
-                            consolFun.toString(),
-                            rrdPath.resolve(consolFun.toString()).toString(),
+                rrdNode.getInternalChildren().add(consolFunNode);
+                for (String ds : rrd.getDsNames()) {
+                    consolFunNode.getInternalChildren().add(new TreeItem<>(new TimeSeriesBinding(
+                            ds,
+                            consolFunNode.getValue().getPath(),
                             null,
-                            consolFun.toString(),
+                            ds,
                             UnitPrefixes.METRIC,
                             ChartType.STACKED,
                             "-",
-                            rrdNode.getValue().getTreeHierarchy() + "/" + consolFun.toString(),
-                            this));
-                    rrdNode.getInternalChildren().add(consolFunNode);
-                    for (String ds : rrd.getDsNames()) {
-                        consolFunNode.getInternalChildren().add(new TreeItem<>(new TimeSeriesBinding(
-                                ds,
-                                consolFunNode.getValue().getPath(),
-                                null,
-                                ds,
-                                UnitPrefixes.METRIC,
-                                ChartType.STACKED,
-                                "-",
-                                consolFunNode.getValue().getTreeHierarchy() + "/" + ds,
-                                this)));
-                    }
+                            consolFunNode.getValue().getTreeHierarchy() + "/" + ds,
+                            this)));
                 }
-                tree.getInternalChildren().add(rrdNode);
-            } catch (IOException e) {
-                throw new DataAdapterException("Failed to open rrd db", e);
             }
         }
-        return tree;
+        return rrdNode;
     }
 
     @Override
@@ -149,8 +172,10 @@ public class Rrd4jFileAdapter extends BaseDataAdapter {
         }
         Path dsPath = Path.of(path);
         try {
-            var end = Instant.ofEpochSecond(rrdDbMap.requestRrdDb(dsPath.getParent().toUri()).getLastArchiveUpdateTime()).atZone(getTimeZoneId());
-            return TimeRange.of(end.minusHours(24), end);
+            try (var handle = rrdDbMap.acquire(dsPath.getParent().toUri())) {
+                var end = Instant.ofEpochSecond(handle.get().getLastArchiveUpdateTime()).atZone(getTimeZoneId());
+                return TimeRange.of(end.minusHours(24), end);
+            }
         } catch (IOException e) {
             throw new FetchingDataFromAdapterException("IO Error while retrieving last update from rrd db", e);
         }
@@ -160,26 +185,38 @@ public class Rrd4jFileAdapter extends BaseDataAdapter {
     public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant
             end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache)
             throws DataAdapterException {
+        return fetchData(path, begin, end, seriesInfo, bypassCache, UserPreferences.getInstance().downSamplingThreshold.get().intValue());
+    }
+
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant
+            end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold)
+            throws DataAdapterException {
         if (this.isClosed()) {
             throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
         }
         Path dsPath = Path.of(path);
-        try {
-            FetchRequest request = rrdDbMap.requestRrdDb(dsPath.getParent().toUri()).createFetchRequest(
-                    ConsolFun.valueOf(dsPath.getFileName().toString()),
+        try (var handle = rrdDbMap.acquire(dsPath.getParent().toUri())) {
+            RrdDb rrdDb = handle.get();
+            ConsolFun consolFun = ConsolFun.valueOf(dsPath.getFileName().toString());
+            FetchRequest request = rrdDb.createFetchRequest(
+                    consolFun,
                     begin.getEpochSecond(),
-                    end.getEpochSecond());
+                    end.getEpochSecond(),
+                    getFetchResolution(rrdDb, consolFun, begin.getEpochSecond(), end.getEpochSecond(), downSamplingThreshold));
             request.setFilter(seriesInfo.stream().map(s -> s.getBinding().getLabel()).toArray(String[]::new));
             FetchData data = request.fetchData();
             Map<TimeSeriesInfo, TimeSeriesProcessor> series = new HashMap<>();
-            for (int i = 0; i < data.getRowCount(); i++) {
-                ZonedDateTime timeStamp = Instant.ofEpochSecond(data.getTimestamps()[i]).atZone(getTimeZoneId());
+            if (data.getRowCount() > 0) {
+                // Convert timestamps once and share them across all series.
+                long[] timestamps = data.getTimestamps();
+                ZonedDateTime[] dates = new ZonedDateTime[timestamps.length];
+                for (int i = 0; i < timestamps.length; i++) {
+                    dates[i] = Instant.ofEpochSecond(timestamps[i]).atZone(getTimeZoneId());
+                }
                 for (TimeSeriesInfo info : seriesInfo) {
-                    Double val = data.getValues(info.getBinding().getLabel())[i];
-                    XYChart.Data<ZonedDateTime, Double> point = new XYChart.Data<>(timeStamp, val);
-                    TimeSeriesProcessor seriesProcessor =
-                            series.computeIfAbsent(info, k -> new DoubleTimeSeriesProcessor());
-                    seriesProcessor.addSample(point);
+                    series.computeIfAbsent(info, k -> new DoubleTimeSeriesProcessor())
+                            .addSamples(dates, data.getValues(info.getBinding().getLabel()));
                 }
             }
             logger.trace(() -> String.format("Built %d series with %d samples each (%d total samples)",
@@ -192,6 +229,32 @@ public class Rrd4jFileAdapter extends BaseDataAdapter {
         }
     }
 
+    /**
+     * Returns the step of the coarsest archive that still provides enough samples to fill the down-sampling threshold
+     * of the requesting chart over the requested interval, so that rrd4j does not read a finer archive than necessary.
+     */
+    private long getFetchResolution(RrdDb rrdDb, ConsolFun consolFun, long begin, long end, int downSamplingThreshold) throws IOException {
+        var userPrefs = UserPreferences.getInstance();
+        long finestStep = rrdDb.getHeader().getStep();
+        if (!userPrefs.downSamplingEnabled.get()) {
+            return finestStep;
+        }
+        long targetStep = Math.max(1, (end - begin) / Math.max(1, downSamplingThreshold));
+        long resolution = finestStep;
+        for (int i = 0; i < rrdDb.getArcCount(); i++) {
+            Archive archive = rrdDb.getArchive(i);
+            if (archive.getConsolFun() == consolFun &&
+                    archive.getArcStep() <= targetStep &&
+                    archive.getArcStep() > resolution &&
+                    archive.getStartTime() <= begin) {
+                resolution = archive.getArcStep();
+            }
+        }
+        final long res = resolution;
+        logger.trace(() -> "Fetching " + consolFun + " data from archive with a resolution of " + res + "s (target: " + targetStep + "s)");
+        return resolution;
+    }
+
     @Override
     public String getEncoding() {
         return "UTF-8";
@@ -234,46 +297,79 @@ public class Rrd4jFileAdapter extends BaseDataAdapter {
     }
 
     private RrdDb openRrdDb(Path rrdPath) throws IOException {
-        if ("text/xml".equalsIgnoreCase(Files.probeContentType(rrdPath))) {
+        String contentType = Files.probeContentType(rrdPath);
+        if ("text/xml".equalsIgnoreCase(contentType) || "application/xml".equalsIgnoreCase(contentType)) {
             logger.debug(() -> "Attempting to import as an rrd XML dump");
-            Path temp = Files.createTempFile("binjr_", "_imported.rrd");
-            tempPathToCollect.add(temp);
-            return RrdDb.getBuilder()
-                    .setPath(temp.toUri())
-                    .setReadOnly(true)
-                    .setExternalPath(RrdDb.PREFIX_XML + rrdPath.toString())
-                    .build();
+            return openImportedRrdDb(rrdPath, RrdDb.PREFIX_XML);
         }
         try {
             return RrdDb.getBuilder()
                     .setPath(rrdPath.toUri())
+                    .setBackendFactory(backendFactory)
                     .setReadOnly(true)
                     .build();
         } catch (InvalidRrdException e) {
             // Possibly a rrd db created with RrdTool.
             // Try to convert and import.
             logger.debug(() -> "Failed to open " + rrdPath + " as an Rrd4j db: attempting to import as an rrdTool db");
+            return openImportedRrdDb(rrdPath, RrdDb.PREFIX_RRDTool);
+        }
+    }
+
+    private RrdDb openImportedRrdDb(Path rrdPath, String importPrefix) throws IOException {
+        // Converted dbs are opened read-only using the NIO backend, which memory maps the file.
+        var nioFactory = RrdBackendFactory.getFactory(Rrd4jBackendType.NIO.toString());
+        if (!prefs.importCacheEnabled.get()) {
             Path temp = Files.createTempFile("binjr_", "_imported.rrd");
             tempPathToCollect.add(temp);
-            return RrdDb.getBuilder()
-                    .setPath(temp.toUri())
-                    .setReadOnly(true)
-                    .setExternalPath(RrdDb.PREFIX_RRDTool + rrdPath.toString())
-                    .build();
+            importRrdDb(rrdPath, importPrefix, temp, nioFactory);
+            return RrdDb.getBuilder().setPath(temp.toUri()).setBackendFactory(nioFactory).setReadOnly(true).build();
+        }
+        Path cacheLocation = prefs.importCacheLocation.get();
+        String sourceKey = UUID.nameUUIDFromBytes(rrdPath.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8)).toString();
+        Path cachedPath = cacheLocation.resolve(sourceKey + "_" +
+                Files.getLastModifiedTime(rrdPath).toMillis() + "_" + Files.size(rrdPath) + ".rrd");
+        if (Files.exists(cachedPath)) {
+            logger.debug(() -> "Reusing converted db " + cachedPath + " for " + rrdPath);
+        } else {
+            Files.createDirectories(cacheLocation);
+            IOUtils.writeAtomically(cachedPath, temp -> importRrdDb(rrdPath, importPrefix, temp, nioFactory));
+            // Remove conversions of previous versions of the same file
+            try (var stale = Files.newDirectoryStream(cacheLocation, sourceKey + "_*.rrd")) {
+                for (Path p : stale) {
+                    if (!p.equals(cachedPath)) {
+                        logger.debug(() -> "Deleting stale converted db " + p);
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException e) {
+                            // The conversion succeeded: a stale copy that cannot be deleted now shouldn't fail it.
+                            logger.warn("Failed to delete stale converted db " + p + ": " + e.getMessage());
+                            logger.debug("Stack trace", e);
+                        }
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.warn("Failed to list stale converted dbs for " + rrdPath + ": " + e.getMessage());
+                logger.debug("Stack trace", e);
+            }
         }
+        return RrdDb.getBuilder().setPath(cachedPath.toUri()).setBackendFactory(nioFactory).setReadOnly(true).build();
     }
 
-    private void closeRrdDb() {
-        for (var rrdUri : rrdDbMap.getOpenUri()) {
-            logger.debug(() -> "Closing RRD db " + rrdUri);
-            try {
-                rrdDbMap.requestRrdDb(rrdUri).close();
-            } catch (IOException e) {
-                logger.error("Error attempting to close RRD db " + rrdUri, e);
-            }
+    private void importRrdDb(Path rrdPath, String importPrefix, Path target, RrdBackendFactory factory) throws IOException {
+        try (Profiler ignored = Profiler.start("Converting " + rrdPath + " to an Rrd4j db", logger::trace)) {
+            RrdDb.getBuilder()
+                    .setPath(target.toUri())
+                    .setBackendFactory(factory)
+                    .setExternalPath(importPrefix + rrdPath.toString())
+                    .doimport();
         }
     }
 
+    private void closeRrdDb() {
+        rrdDbMap.closeAll();
+    }
+
     private void cleanTempFiles() {
         //Cleaning up temp files used to import rrdtool files
         tempPathToCollect.forEach(p -> {
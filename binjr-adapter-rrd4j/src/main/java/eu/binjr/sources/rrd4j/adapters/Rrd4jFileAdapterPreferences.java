@@ -19,6 +19,8 @@ package eu.binjr.sources.rrd4j.adapters;
 import eu.binjr.common.preferences.Preference;
 import eu.binjr.core.data.adapters.DataAdapterPreferences;
 
+import java.nio.file.Path;
+
 
 /**
  * Defines the preferences associated with the RRD4J adapter.
@@ -30,6 +32,23 @@ public class Rrd4jFileAdapterPreferences extends DataAdapterPreferences {
     public final Preference<Rrd4jBackendType> rrd4jBackend =
             enumPreference(Rrd4jBackendType.class, "rrd4jBackend", Rrd4jBackendType.NIO);
 
+    /**
+     * The maximum number of rrd files kept open at any one time; the least recently used ones are closed first.
+     */
+    public final Preference<Number> maxOpenFiles = integerPreference("maxOpenFiles", 256);
+
+    /**
+     * True if rrdtool files and XML dumps should be kept in a persistent cache once converted, so that they do not
+     * need to be converted again the next time they are opened, false otherwise.
+     */
+    public final Preference<Boolean> importCacheEnabled = booleanPreference("importCacheEnabled", true);
+
+    /**
+     * The location where converted rrdtool files and XML dumps are stored.
+     */
+    public final Preference<Path> importCacheLocation =
+            pathPreference("importCacheLocation", Path.of(System.getProperty("java.io.tmpdir"), "binjr", "rrd_cache"));
+
     private Rrd4jFileAdapterPreferences() {
         super(Rrd4jFileAdapter.class);
     }
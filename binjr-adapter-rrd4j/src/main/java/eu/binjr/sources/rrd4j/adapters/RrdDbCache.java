@@ -0,0 +1,180 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.sources.rrd4j.adapters;
+
+import eu.binjr.common.function.CheckedFunction;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.rrd4j.core.RrdDb;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * A cache of open {@link RrdDb} instances, which closes the least recently used ones once a maximum number of open
+ * files is reached.
+ * <p>Unlike {@link org.rrd4j.core.RrdDbPool}, it never blocks when that limit is reached: instances still in use
+ * when evicted are closed as soon as they are released. Files are opened outside of the cache's lock, so that
+ * several of them can be opened in parallel.</p>
+ *
+ * @author Frederic Thevenet
+ */
+class RrdDbCache {
+    private static final Logger logger = LogManager.getLogger(RrdDbCache.class);
+    private final CheckedFunction<URI, RrdDb, IOException> opener;
+    private final Map<URI, CacheEntry> entries;
+
+    /**
+     * Initializes a new instance of the {@link RrdDbCache} class.
+     *
+     * @param opener       the function used to open an {@link RrdDb} from its URI.
+     * @param maxOpenFiles provides the maximum number of {@link RrdDb} instances to keep open.
+     */
+    RrdDbCache(CheckedFunction<URI, RrdDb, IOException> opener, IntSupplier maxOpenFiles) {
+        this.opener = opener;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<URI, CacheEntry> eldest) {
+                if (size() > Math.max(1, maxOpenFiles.getAsInt())) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns a handle on the {@link RrdDb} for the specified URI, opening it if necessary.
+     * <p>The handle must be closed once the {@link RrdDb} is no longer used.</p>
+     *
+     * @param uri the URI of the rrd db.
+     * @return a handle on the {@link RrdDb} for the specified URI.
+     * @throws IOException if an error occurs while opening the rrd db.
+     */
+    Handle acquire(URI uri) throws IOException {
+        CacheEntry entry;
+        synchronized (entries) {
+            entry = entries.get(uri);
+            if (entry == null || entry.evicted) {
+                entry = new CacheEntry(uri);
+                entries.put(uri, entry);
+            }
+            entry.leases++;
+        }
+        try {
+            return new Handle(entry, entry.open());
+        } catch (IOException | RuntimeException e) {
+            release(entry);
+            synchronized (entries) {
+                entries.remove(uri, entry);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Closes all {@link RrdDb} instances held by the cache.
+     */
+    void closeAll() {
+        synchronized (entries) {
+            new ArrayList<>(entries.values()).forEach(CacheEntry::evict);
+            entries.clear();
+        }
+    }
+
+    private void release(CacheEntry entry) {
+        synchronized (entries) {
+            entry.leases--;
+            if (entry.evicted && entry.leases == 0) {
+                entry.close();
+            }
+        }
+    }
+
+    /**
+     * A handle on an open {@link RrdDb}, which must be closed to release it.
+     */
+    class Handle implements AutoCloseable {
+        private final CacheEntry entry;
+        private final RrdDb rrdDb;
+
+        private Handle(CacheEntry entry, RrdDb rrdDb) {
+            this.entry = entry;
+            this.rrdDb = rrdDb;
+        }
+
+        /**
+         * Returns the {@link RrdDb} instance.
+         *
+         * @return the {@link RrdDb} instance.
+         */
+        RrdDb get() {
+            return rrdDb;
+        }
+
+        @Override
+        public void close() {
+            release(entry);
+        }
+    }
+
+    private class CacheEntry {
+        private final URI uri;
+        private RrdDb rrdDb;
+        private int leases = 0;
+        private boolean evicted = false;
+
+        private CacheEntry(URI uri) {
+            this.uri = uri;
+        }
+
+        private synchronized RrdDb open() throws IOException {
+            if (rrdDb == null) {
+                logger.trace(() -> "Opening RRD db " + uri);
+                rrdDb = opener.apply(uri);
+            }
+            return rrdDb;
+        }
+
+        // Always invoked while holding the lock on the cache's entries
+        private void evict() {
+            evicted = true;
+            if (leases == 0) {
+                close();
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (rrdDb != null) {
+                    logger.debug(() -> "Closing RRD db " + uri);
+                    try {
+                        rrdDb.close();
+                    } catch (IOException e) {
+                        logger.error("Error attempting to close RRD db " + uri, e);
+                    }
+                    rrdDb = null;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads values with an arbitrary number of bits from a {@link ByteBuffer}, as written by a {@link BitWriter}.
+ * <p>The reader uses absolute get operations and therefore never modifies the position of the underlying buffer.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class BitReader {
+    private final ByteBuffer buffer;
+    private final int offset;
+    private long bitPosition = 0;
+
+    /**
+     * Initializes a new instance of the {@link BitReader} class.
+     *
+     * @param buffer the buffer to read from.
+     */
+    public BitReader(ByteBuffer buffer) {
+        this(buffer, 0);
+    }
+
+    /**
+     * Initializes a new instance of the {@link BitReader} class, starting at the specified offset in the buffer.
+     *
+     * @param buffer the buffer to read from.
+     * @param offset the offset in bytes to start reading from.
+     */
+    public BitReader(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    /**
+     * Reads a single bit.
+     *
+     * @return true if the bit is 1, false otherwise.
+     */
+    public boolean readBit() {
+        int b = buffer.get(offset + (int) (bitPosition >>> 3));
+        boolean bit = (b & (0x80 >>> (bitPosition & 7))) != 0;
+        bitPosition++;
+        return bit;
+    }
+
+    /**
+     * Reads the specified number of bits, as an unsigned value.
+     *
+     * @param nbBits the number of bits to read (from 0 to 64).
+     * @return the value read.
+     */
+    public long readBits(int nbBits) {
+        if (nbBits < 0 || nbBits > 64) {
+            throw new IllegalArgumentException("Number of bits must be between 0 and 64: " + nbBits);
+        }
+        long value = 0;
+        while (nbBits > 0) {
+            int b = buffer.get(offset + (int) (bitPosition >>> 3)) & 0xFF;
+            int availableBits = 8 - (int) (bitPosition & 7);
+            int n = Math.min(availableBits, nbBits);
+            int chunk = (b >>> (availableBits - n)) & ((1 << n) - 1);
+            value = (value << n) | chunk;
+            bitPosition += n;
+            nbBits -= n;
+        }
+        return value;
+    }
+
+    /**
+     * Reads the specified number of bits, as a two's complement signed value.
+     *
+     * @param nbBits the number of bits to read (from 1 to 64).
+     * @return the value read.
+     */
+    public long readSignedBits(int nbBits) {
+        long value = readBits(nbBits);
+        int shift = 64 - nbBits;
+        return (value << shift) >> shift;
+    }
+
+    /**
+     * Returns the number of bits read so far.
+     *
+     * @return the number of bits read so far.
+     */
+    public long getBitPosition() {
+        return bitPosition;
+    }
+}
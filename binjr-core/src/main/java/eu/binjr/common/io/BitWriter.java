@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.io;
+
+import java.util.Arrays;
+
+/**
+ * A growable, in-memory buffer that supports writing values with an arbitrary number of bits.
+ * <p>Bits are written most significant first; the last byte is padded with zeros.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class BitWriter {
+    private byte[] buffer;
+    private long bitPosition = 0;
+
+    /**
+     * Initializes a new instance of the {@link BitWriter} class.
+     */
+    public BitWriter() {
+        this(1024);
+    }
+
+    /**
+     * Initializes a new instance of the {@link BitWriter} class with the specified initial capacity.
+     *
+     * @param initialCapacity the initial capacity of the buffer, in bytes.
+     */
+    public BitWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(8, initialCapacity)];
+    }
+
+    /**
+     * Writes a single bit.
+     *
+     * @param bit true to write 1, false to write 0.
+     */
+    public void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            buffer[(int) (bitPosition >>> 3)] |= (byte) (0x80 >>> (bitPosition & 7));
+        }
+        bitPosition++;
+    }
+
+    /**
+     * Writes the lowest {@code nbBits} bits of the provided value.
+     *
+     * @param value  the value to write.
+     * @param nbBits the number of bits to write (from 0 to 64).
+     */
+    public void writeBits(long value, int nbBits) {
+        if (nbBits < 0 || nbBits > 64) {
+            throw new IllegalArgumentException("Number of bits must be between 0 and 64: " + nbBits);
+        }
+        ensureCapacity(nbBits);
+        while (nbBits > 0) {
+            int index = (int) (bitPosition >>> 3);
+            int freeBits = 8 - (int) (bitPosition & 7);
+            int n = Math.min(freeBits, nbBits);
+            int chunk = (int) ((value >>> (nbBits - n)) & ((1 << n) - 1));
+            buffer[index] |= (byte) (chunk << (freeBits - n));
+            bitPosition += n;
+            nbBits -= n;
+        }
+    }
+
+    /**
+     * Returns the number of bits written so far.
+     *
+     * @return the number of bits written so far.
+     */
+    public long getBitLength() {
+        return bitPosition;
+    }
+
+    /**
+     * Returns the number of bytes needed to hold all bits written so far.
+     *
+     * @return the number of bytes needed to hold all bits written so far.
+     */
+    public int getByteLength() {
+        return (int) ((bitPosition + 7) >>> 3);
+    }
+
+    /**
+     * Returns a copy of the content of the buffer.
+     *
+     * @return a copy of the content of the buffer.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, getByteLength());
+    }
+
+    /**
+     * Clears the content of the buffer, retaining its current capacity.
+     */
+    public void reset() {
+        Arrays.fill(buffer, 0, getByteLength(), (byte) 0);
+        bitPosition = 0;
+    }
+
+    private void ensureCapacity(int nbBits) {
+        long required = (bitPosition + nbBits + 7) >>> 3;
+        if (required > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.max(required, buffer.length * 2L));
+        }
+    }
+}
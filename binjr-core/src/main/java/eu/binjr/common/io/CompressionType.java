@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.common.io;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+import org.tukaani.xz.XZInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Enumerates the compression formats that can be detected from the first bytes of a stream.
+ *
+ * @author Frederic Thevenet
+ */
+public enum CompressionType {
+    NONE("Uncompressed", true),
+    GZIP("Gzip", true, 0x1F, 0x8B),
+    ZIP("Zip", true, 0x50, 0x4B, 0x03, 0x04),
+    ZSTD("Zstandard", true, 0x28, 0xB5, 0x2F, 0xFD),
+    XZ("XZ", true, 0xFD, 0x37, 0x7A, 0x58, 0x5A, 0x00),
+    BZIP2("Bzip2", false, 0x42, 0x5A, 0x68);
+
+    private static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+    private final String label;
+    private final boolean supported;
+    private final int[] magic;
+
+    CompressionType(String label, boolean supported, int... magic) {
+        this.label = label;
+        this.supported = supported;
+        this.magic = magic;
+    }
+
+    /**
+     * Detects the compression format of a file from its first bytes.
+     *
+     * @param path the path of the file.
+     * @return the compression format of the file, or {@link #NONE} if it isn't recognized.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static CompressionType detect(Path path) throws IOException {
+        try (var in = Files.newInputStream(path)) {
+            return detect(in.readNBytes(8));
+        }
+    }
+
+    /**
+     * Detects the compression format of a stream from its first bytes.
+     *
+     * @param header the first bytes of the stream.
+     * @return the compression format of the stream, or {@link #NONE} if it isn't recognized.
+     */
+    public static CompressionType detect(byte[] header) {
+        for (var type : values()) {
+            if (type.magic.length > 0 && type.matches(header)) {
+                return type;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns true if streams compressed in this format can be decompressed, false otherwise.
+     *
+     * @return true if streams compressed in this format can be decompressed, false otherwise.
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Wraps the provided stream into a stream that decompresses its content.
+     *
+     * @param in the compressed stream.
+     * @return a stream that decompresses the content of the provided stream.
+     * @throws IOException if an I/O error occurs or if the compression format isn't supported.
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        switch (this) {
+            case NONE:
+                return in;
+            case GZIP:
+                return new GZIPInputStream(in, DECOMPRESSION_BUFFER_SIZE);
+            case ZIP:
+                var zip = new ZipInputStream(new BufferedInputStream(in, DECOMPRESSION_BUFFER_SIZE));
+                if (zip.getNextEntry() == null) {
+                    zip.close();
+                    throw new IOException("Zip archive is empty");
+                }
+                return zip;
+            case ZSTD:
+                return new ZstdInputStream(new BufferedInputStream(in, DECOMPRESSION_BUFFER_SIZE));
+            case XZ:
+                return new XZInputStream(new BufferedInputStream(in, DECOMPRESSION_BUFFER_SIZE));
+            default:
+                in.close();
+                throw new IOException(label + " compressed files are not supported");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    private boolean matches(byte[] header) {
+        if (header.length < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        if (this == BZIP2) {
+            // "BZh" is followed by the block size, from '1' to '9'
+            return header.length > magic.length && header[magic.length] >= '1' && header[magic.length] <= '9';
+        }
+        return true;
+    }
+}
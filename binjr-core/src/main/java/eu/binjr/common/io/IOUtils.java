@@ -16,6 +16,7 @@
 
 package eu.binjr.common.io;
 
+import eu.binjr.common.function.CheckedConsumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -23,8 +24,14 @@ import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.UUID;
 
 /**
  * Utility methods to read, write and copy data from and across streams
@@ -93,6 +100,57 @@ public class IOUtils {
         return count;
     }
 
+    /**
+     * Returns an {@link InputStream} that reads from the provided stream but reports the end of the stream
+     * once the specified number of bytes have been read.
+     *
+     * @param input the stream to read from.
+     * @param limit the maximum number of bytes to read.
+     * @return a bounded view of the provided stream.
+     */
+    public static InputStream boundedInputStream(InputStream input, long limit) {
+        Objects.requireNonNull(input, "Argument input must not be null");
+        return new FilterInputStream(input) {
+            private long remaining = limit;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining <= 0) {
+                    return EOF;
+                }
+                int b = super.read();
+                if (b != EOF) {
+                    remaining--;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (remaining <= 0) {
+                    return EOF;
+                }
+                int n = super.read(b, off, (int) Math.min(len, remaining));
+                if (n > 0) {
+                    remaining -= n;
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(Math.min(n, remaining));
+                remaining -= skipped;
+                return skipped;
+            }
+
+            @Override
+            public int available() throws IOException {
+                return (int) Math.min(super.available(), remaining);
+            }
+        };
+    }
+
     public static String readToString(InputStream in) throws IOException {
         return new String(readToBuffer(in));
     }
@@ -114,4 +172,54 @@ public class IOUtils {
             }
         });
     }
+
+    /**
+     * Writes a file by handing a temporary file to the provided writer, which then replaces the target, so that the
+     * target is left untouched if an error occurs.
+     *
+     * @param target the file to write.
+     * @param writer writes the content of the file to the provided path.
+     * @param attrs  the attributes to set when creating the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void writeAtomically(Path target, CheckedConsumer<Path, IOException> writer, FileAttribute<?>... attrs) throws IOException {
+        var tmp = createSiblingTempFile(target, attrs);
+        try {
+            writer.accept(tmp);
+            replaceAtomically(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Creates an empty, hidden file in the same directory as the specified one, to be moved over it with
+     * {@link #replaceAtomically(Path, Path)} once written.
+     * <p>Unlike with {@link Files#createTempFile(Path, String, String, FileAttribute[])}, the file gets the same
+     * default permissions as any other file created in the directory.</p>
+     *
+     * @param target the file to create a sibling for.
+     * @param attrs  the attributes to set when creating the file.
+     * @return the path of the new file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static Path createSiblingTempFile(Path target, FileAttribute<?>... attrs) throws IOException {
+        var sibling = target.toAbsolutePath().resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        return Files.createFile(sibling, attrs);
+    }
+
+    /**
+     * Moves a file over another, atomically if the file system supports it.
+     *
+     * @param source the file to move.
+     * @param target the file to replace.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void replaceAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.common.io;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link InputStream} that reads ahead from a source stream on a separate thread, so that producing the data
+ * (e.g. reading and decompressing it) overlaps with consuming it.
+ * <p>Chunks that have been read ahead are held in a bounded queue; the producing thread blocks when the queue
+ * is full.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class ReadAheadInputStream extends InputStream {
+    private static final Logger logger = LogManager.getLogger(ReadAheadInputStream.class);
+    private static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+    private static final int DEFAULT_MAX_PENDING_CHUNKS = 8;
+    private static final byte[] END_OF_STREAM = new byte[0];
+    private final BlockingQueue<byte[]> queue;
+    private volatile boolean closed = false;
+    private volatile IOException failure = null;
+    private byte[] current = null;
+    private int position = 0;
+
+    /**
+     * Initializes a new instance of the {@link ReadAheadInputStream} class.
+     *
+     * @param source   the stream to read ahead from.
+     * @param executor the executor on which to run the read-ahead task.
+     */
+    public ReadAheadInputStream(InputStream source, Executor executor) {
+        this(source, executor, DEFAULT_CHUNK_SIZE, DEFAULT_MAX_PENDING_CHUNKS);
+    }
+
+    /**
+     * Initializes a new instance of the {@link ReadAheadInputStream} class.
+     *
+     * @param source           the stream to read ahead from.
+     * @param executor         the executor on which to run the read-ahead task.
+     * @param chunkSize        the size of the chunks read from the source stream.
+     * @param maxPendingChunks the maximum number of chunks read ahead.
+     */
+    public ReadAheadInputStream(InputStream source, Executor executor, int chunkSize, int maxPendingChunks) {
+        Objects.requireNonNull(source, "Argument source must not be null");
+        Objects.requireNonNull(executor, "Argument executor must not be null");
+        this.queue = new ArrayBlockingQueue<>(maxPendingChunks);
+        executor.execute(() -> {
+            try (source) {
+                int n;
+                do {
+                    byte[] chunk = new byte[chunkSize];
+                    n = source.readNBytes(chunk, 0, chunkSize);
+                    if (n > 0 && !enqueue(n < chunkSize ? Arrays.copyOf(chunk, n) : chunk)) {
+                        return;
+                    }
+                } while (n == chunkSize && !closed);
+            } catch (IOException e) {
+                failure = e;
+            } catch (InterruptedException e) {
+                failure = new InterruptedIOException("Read-ahead was interrupted");
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    enqueue(END_OF_STREAM);
+                } catch (InterruptedException e) {
+                    logger.debug("Interrupted while signaling end of read-ahead stream");
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return current == null || current == END_OF_STREAM ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+        while (current != END_OF_STREAM && (current == null || position >= current.length)) {
+            try {
+                current = queue.take();
+                position = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for data");
+            }
+        }
+        if (current == END_OF_STREAM) {
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private boolean enqueue(byte[] chunk) throws InterruptedException {
+        while (!closed) {
+            if (queue.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
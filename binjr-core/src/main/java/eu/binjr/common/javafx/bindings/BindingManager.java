@@ -16,6 +16,7 @@
 
 package eu.binjr.common.javafx.bindings;
 
+import javafx.animation.Animation;
 import javafx.beans.InvalidationListener;
 import javafx.beans.property.Property;
 import javafx.beans.value.ChangeListener;
@@ -50,6 +51,7 @@ public class BindingManager implements AutoCloseable {
     private final Map<Property<?>, ObservableValue> boundProperties = Collections.synchronizedMap(new WeakHashMap<>());
     private final Map<Property<?>, Property> bidirectionallyBoundProperties = Collections.synchronizedMap(new WeakHashMap<>());
     private final List<EventHandler<?>> registeredHandlers = Collections.synchronizedList(new ArrayList<>());
+    private final List<Animation> registeredAnimations = Collections.synchronizedList(new ArrayList<>());
 
     /**
      * Binds the specified {@link ObservableValue} onto the specified {@link Property} and registers the resulting binding.
@@ -195,6 +197,8 @@ public class BindingManager implements AutoCloseable {
             unregisterAll(invalidationListeners, ObservableValue::removeListener);
             unregisterAll(changeListeners, ObservableValue::removeListener);
             unbindAll();
+            registeredAnimations.forEach(Animation::stop);
+            registeredAnimations.clear();
             // Release strong refs to registered event handlers, so that their
             // weak counterpart may be collected.
             registeredHandlers.clear();
@@ -242,6 +246,18 @@ public class BindingManager implements AutoCloseable {
         return new WeakEventHandler<T>(handler);
     }
 
+    /**
+     * Registers an {@link Animation}, so that it is stopped when this instance is closed.
+     *
+     * @param animation the {@link Animation} to register.
+     * @param <T>       the type of {@link Animation}
+     * @return the registered {@link Animation}
+     */
+    public <T extends Animation> T registerAnimation(T animation) {
+        registeredAnimations.add(animation);
+        return animation;
+    }
+
     private <T, U> void register(T observable, U listener, Map<T, List<U>> map, BiConsumer<T, U> attachAction) {
         Objects.requireNonNull(observable, "observable parameter cannot be null");
         Objects.requireNonNull(listener, "listener parameter cannot be null");
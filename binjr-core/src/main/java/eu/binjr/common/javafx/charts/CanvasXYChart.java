@@ -0,0 +1,689 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.common.javafx.charts;
+
+import eu.binjr.common.logging.Profiler;
+import javafx.beans.property.*;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.chart.Axis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.paint.Color;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.*;
+
+/**
+ * An {@link XYChart} that draws its series directly onto a single {@link Canvas}, rather than creating a
+ * {@link javafx.scene.shape.Path} element for each point or a node for each symbol.
+ * <p>The values of each series are copied into primitive arrays whenever the series' data changes (or ahead of time,
+ * on any thread, via {@link #prepareGeometry(List)}), and series are reduced to at most four points per pixel column
+ * (first, min, max and last) before being drawn, so that the cost of a redraw depends on the width of the chart
+ * rather than on the number of samples.</p>
+ * <p>Axes, legend and the plot area's content are handled by {@link XYChart}, so that the chart can be used in place
+ * of any of the standard {@link XYChart} implementations.</p>
+ *
+ * @param <X> the type of the X values.
+ * @param <Y> the type of the Y values.
+ * @author Frederic Thevenet
+ */
+public class CanvasXYChart<X, Y> extends XYChart<X, Y> {
+    private static final Logger logger = LogManager.getLogger(CanvasXYChart.class);
+    private final RenderingMode renderingMode;
+    private final Canvas canvas = new Canvas();
+    private final Map<Series<X, Y>, SeriesBuffer> buffers = new HashMap<>();
+    private final Map<Series<X, Y>, ObjectProperty<Color>> seriesColors = Collections.synchronizedMap(new WeakHashMap<>());
+    private final DoubleProperty strokeWidth = new SimpleDoubleProperty(1.0);
+    private final DoubleProperty fillOpacity = new SimpleDoubleProperty(0.3);
+    private final BooleanProperty showAreaOutline = new SimpleBooleanProperty(true);
+
+    /**
+     * The ways series can be drawn.
+     */
+    public enum RenderingMode {
+        /**
+         * Series are drawn as lines.
+         */
+        LINE,
+        /**
+         * Series are drawn as filled areas.
+         */
+        AREA,
+        /**
+         * Series are drawn as filled areas, stacked on top of one another.
+         */
+        STACKED,
+        /**
+         * Each sample is drawn as a dot.
+         */
+        SCATTER
+    }
+
+    /**
+     * Initializes a new instance of the {@link CanvasXYChart} class.
+     *
+     * @param xAxis         the x axis of the chart.
+     * @param yAxis         the y axis of the chart.
+     * @param renderingMode the way series are drawn.
+     */
+    public CanvasXYChart(Axis<X> xAxis, Axis<Y> yAxis, RenderingMode renderingMode) {
+        super(xAxis, yAxis);
+        this.renderingMode = renderingMode;
+        canvas.setManaged(false);
+        getPlotChildren().add(canvas);
+        strokeWidth.addListener(observable -> requestChartLayout());
+        fillOpacity.addListener(observable -> requestChartLayout());
+        showAreaOutline.addListener(observable -> requestChartLayout());
+    }
+
+    /**
+     * Returns the property holding the color of the specified series.
+     *
+     * @param series the series.
+     * @return the property holding the color of the specified series.
+     */
+    public ObjectProperty<Color> seriesColorProperty(Series<X, Y> series) {
+        return seriesColors.computeIfAbsent(series, s -> {
+            var color = new SimpleObjectProperty<>(Color.GRAY);
+            color.addListener(observable -> requestChartLayout());
+            return color;
+        });
+    }
+
+    /**
+     * Returns the way series are drawn.
+     *
+     * @return the way series are drawn.
+     */
+    public RenderingMode getRenderingMode() {
+        return renderingMode;
+    }
+
+    /**
+     * The width of lines, or the radius of dots on scatter charts.
+     *
+     * @return the width of lines, or the radius of dots on scatter charts.
+     */
+    public DoubleProperty strokeWidthProperty() {
+        return strokeWidth;
+    }
+
+    /**
+     * The opacity of the areas' fill.
+     *
+     * @return the opacity of the areas' fill.
+     */
+    public DoubleProperty fillOpacityProperty() {
+        return fillOpacity;
+    }
+
+    /**
+     * True if an outline should be drawn on top of areas, false otherwise.
+     *
+     * @return true if an outline should be drawn on top of areas, false otherwise.
+     */
+    public BooleanProperty showAreaOutlineProperty() {
+        return showAreaOutline;
+    }
+
+    /**
+     * Computes the numeric values, bounds and contiguous segments of the specified series and, if the chart stacks
+     * series, the boundaries of their areas, in preparation for drawing them.
+     * <p>This does not access the scene graph and can be called from any thread, so that the bulk of the work needed
+     * to lay out the chart can be done before its series are updated on the JavaFX application thread.</p>
+     *
+     * @param seriesData the data of each series, in the order in which the series are displayed.
+     * @return the geometry of each series, in the same order.
+     */
+    public List<SeriesGeometry> prepareGeometry(List<? extends Collection<Data<X, Y>>> seriesData) {
+        try (Profiler p = Profiler.start("Preparing geometry for canvas chart", logger::trace)) {
+            var geometry = new ArrayList<SeriesGeometry>(seriesData.size());
+            for (var data : seriesData) {
+                geometry.add(computeGeometry(getXAxis(), getYAxis(), data));
+            }
+            if (renderingMode == RenderingMode.STACKED) {
+                stack(geometry);
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * Sets the geometry to draw the specified series with, as returned by {@link #prepareGeometry(List)}.
+     * <p>The geometry is used until the data of the series changes; it should therefore be set after the series'
+     * data has been updated.</p>
+     *
+     * @param series   the series.
+     * @param geometry the geometry of the series.
+     */
+    public void setGeometry(Series<X, Y> series, SeriesGeometry geometry) {
+        var buffer = buffers.get(series);
+        if (buffer != null) {
+            buffer.geometry = geometry;
+            buffer.dirty = false;
+            requestChartLayout();
+        }
+    }
+
+    @Override
+    protected void dataItemAdded(Series<X, Y> series, int itemIndex, Data<X, Y> item) {
+        invalidateSeries(series);
+    }
+
+    @Override
+    protected void dataItemRemoved(Data<X, Y> item, Series<X, Y> series) {
+        invalidateSeries(series);
+        removeDataItemFromDisplay(series, item);
+    }
+
+    @Override
+    protected void dataItemChanged(Data<X, Y> item) {
+        buffers.values().forEach(SeriesBuffer::invalidate);
+    }
+
+    @Override
+    protected void seriesAdded(Series<X, Y> series, int seriesIndex) {
+        buffers.put(series, new SeriesBuffer(series));
+    }
+
+    @Override
+    protected void seriesRemoved(Series<X, Y> series) {
+        buffers.remove(series);
+        removeSeriesFromDisplay(series);
+    }
+
+    @Override
+    protected void updateAxisRange() {
+        final Axis<X> xa = getXAxis();
+        final Axis<Y> ya = getYAxis();
+        var displayed = getDisplayedGeometry();
+        if (xa.isAutoRanging()) {
+            List<X> xData = new ArrayList<>();
+            for (var geometry : displayed) {
+                if (geometry.size > 0) {
+                    xData.add(xa.toRealValue(geometry.minX));
+                    xData.add(xa.toRealValue(geometry.maxX));
+                }
+            }
+            xa.invalidateRange(xData);
+        }
+        if (ya.isAutoRanging()) {
+            double minY = Double.MAX_VALUE;
+            double maxY = -Double.MAX_VALUE;
+            for (var geometry : displayed) {
+                if (renderingMode == RenderingMode.STACKED) {
+                    if (geometry.stackSize > 0) {
+                        minY = Math.min(minY, geometry.minStack);
+                        maxY = Math.max(maxY, geometry.maxStack);
+                    }
+                } else if (geometry.size > 0 && !Double.isNaN(geometry.minY)) {
+                    minY = Math.min(minY, geometry.minY);
+                    maxY = Math.max(maxY, geometry.maxY);
+                }
+            }
+            if (minY != Double.MAX_VALUE) {
+                ya.invalidateRange(Arrays.asList(ya.toRealValue(minY), ya.toRealValue(maxY)));
+            }
+        }
+    }
+
+    @Override
+    protected void layoutPlotChildren() {
+        try (Profiler p = Profiler.start("Drawing canvas chart " + this.getTitle(), logger::trace)) {
+            final Axis<X> xa = getXAxis();
+            final Axis<Y> ya = getYAxis();
+            double width = xa.getWidth();
+            double height = ya.getHeight();
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            GraphicsContext gc = canvas.getGraphicsContext2D();
+            gc.clearRect(0, 0, width, height);
+            var displayed = getDisplayedGeometry();
+            if (displayed.isEmpty() || width <= 0 || height <= 0) {
+                return;
+            }
+            var xMap = LinearMapping.of(xa, displayed.stream().mapToDouble(g -> g.minX).min().orElse(0),
+                    displayed.stream().mapToDouble(g -> g.maxX).max().orElse(1));
+            var yMap = LinearMapping.of(ya, 0, 1);
+            double zeroY = Math.max(0, Math.min(height, yMap.apply(0)));
+            var decimator = new PixelDecimator();
+            int i = 0;
+            for (Iterator<Series<X, Y>> it = getDisplayedSeriesIterator(); it.hasNext(); i++) {
+                var geometry = displayed.get(i);
+                var color = seriesColorProperty(it.next()).get();
+                gc.setLineWidth(strokeWidth.get());
+                gc.setStroke(color);
+                gc.setFill(color);
+                switch (renderingMode) {
+                    case SCATTER:
+                        drawScatter(gc, geometry, xMap, yMap);
+                        break;
+                    case STACKED:
+                        drawStacked(gc, geometry, xMap, yMap, decimator, color);
+                        break;
+                    case AREA:
+                        drawSegments(gc, geometry, xMap, yMap, decimator, zeroY, color);
+                        break;
+                    case LINE:
+                    default:
+                        drawSegments(gc, geometry, xMap, yMap, decimator, Double.NaN, color);
+                        break;
+                }
+            }
+        }
+    }
+
+    private void drawScatter(GraphicsContext gc, SeriesGeometry geometry, LinearMapping xMap, LinearMapping yMap) {
+        double radius = strokeWidth.get();
+        long lastPixel = Long.MIN_VALUE;
+        for (int i = 0; i < geometry.size; i++) {
+            if (Double.isNaN(geometry.y[i])) {
+                continue;
+            }
+            double px = xMap.apply(geometry.x[i]);
+            double py = yMap.apply(geometry.y[i]);
+            // Skip dots that would be drawn exactly on top of the previous one
+            long pixel = (Math.round(px) << 32) ^ Math.round(py);
+            if (pixel != lastPixel) {
+                gc.fillOval(px - radius, py - radius, radius * 2, radius * 2);
+                lastPixel = pixel;
+            }
+        }
+    }
+
+    private void drawSegments(GraphicsContext gc,
+                              SeriesGeometry geometry,
+                              LinearMapping xMap,
+                              LinearMapping yMap,
+                              PixelDecimator decimator,
+                              double baseline,
+                              Color color) {
+        for (int s = 0; s < geometry.segmentCount; s++) {
+            int start = geometry.segments[s * 2];
+            int end = geometry.segments[s * 2 + 1];
+            decimator.reset();
+            for (int i = start; i < end; i++) {
+                decimator.add(xMap.apply(geometry.x[i]), yMap.apply(geometry.y[i]));
+            }
+            decimator.flush();
+            if (Double.isNaN(baseline)) {
+                gc.strokePolyline(decimator.xs, decimator.ys, decimator.size);
+            } else {
+                gc.setFill(color.deriveColor(0.0, 1.0, 1.0, fillOpacity.get()));
+                gc.beginPath();
+                gc.moveTo(decimator.xs[0], baseline);
+                for (int i = 0; i < decimator.size; i++) {
+                    gc.lineTo(decimator.xs[i], decimator.ys[i]);
+                }
+                gc.lineTo(decimator.xs[decimator.size - 1], baseline);
+                gc.closePath();
+                gc.fill();
+                if (showAreaOutline.get()) {
+                    gc.strokePolyline(decimator.xs, decimator.ys, decimator.size);
+                }
+            }
+        }
+    }
+
+    private void drawStacked(GraphicsContext gc,
+                             SeriesGeometry geometry,
+                             LinearMapping xMap,
+                             LinearMapping yMap,
+                             PixelDecimator decimator,
+                             Color color) {
+        if (geometry.stackSize == 0) {
+            return;
+        }
+        decimator.reset();
+        for (int i = 0; i < geometry.stackSize; i++) {
+            decimator.add(xMap.apply(geometry.stackX[i]), yMap.apply(geometry.stackTop[i]));
+        }
+        decimator.flush();
+        double[] topX = Arrays.copyOf(decimator.xs, decimator.size);
+        double[] topY = Arrays.copyOf(decimator.ys, decimator.size);
+        decimator.reset();
+        for (int i = 0; i < geometry.stackSize; i++) {
+            decimator.add(xMap.apply(geometry.stackX[i]), yMap.apply(geometry.stackBottom[i]));
+        }
+        decimator.flush();
+        gc.setFill(color.deriveColor(0.0, 1.0, 1.0, fillOpacity.get()));
+        gc.beginPath();
+        gc.moveTo(topX[0], topY[0]);
+        for (int i = 1; i < topX.length; i++) {
+            gc.lineTo(topX[i], topY[i]);
+        }
+        for (int i = decimator.size - 1; i >= 0; i--) {
+            gc.lineTo(decimator.xs[i], decimator.ys[i]);
+        }
+        gc.closePath();
+        gc.fill();
+        if (showAreaOutline.get()) {
+            gc.strokePolyline(topX, topY, topX.length);
+        }
+    }
+
+    // Returns the geometry of the displayed series, in display order, computing whatever is missing or outdated.
+    private List<SeriesGeometry> getDisplayedGeometry() {
+        var displayed = new ArrayList<SeriesGeometry>();
+        for (Iterator<Series<X, Y>> it = getDisplayedSeriesIterator(); it.hasNext(); ) {
+            var series = it.next();
+            var buffer = buffers.computeIfAbsent(series, SeriesBuffer::new);
+            if (buffer.geometry == null || buffer.dirty) {
+                buffer.geometry = computeGeometry(getXAxis(), getYAxis(), buffer.series.getData());
+                buffer.dirty = false;
+            }
+            displayed.add(buffer.geometry);
+        }
+        if (renderingMode == RenderingMode.STACKED && !isStacked(displayed)) {
+            stack(displayed);
+        }
+        return displayed;
+    }
+
+    private void invalidateSeries(Series<X, Y> series) {
+        var buffer = buffers.get(series);
+        if (buffer != null) {
+            buffer.invalidate();
+        }
+    }
+
+    private static <X, Y> SeriesGeometry computeGeometry(Axis<X> xa, Axis<Y> ya, Collection<Data<X, Y>> data) {
+        var geometry = new SeriesGeometry(data.size());
+        int i = 0;
+        for (var item : data) {
+            if (item == null || item.getXValue() == null) {
+                continue;
+            }
+            double xv = xa.toNumericValue(item.getXValue());
+            double yv = item.getYValue() == null ? Double.NaN : ya.toNumericValue(item.getYValue());
+            geometry.x[i] = xv;
+            geometry.y[i] = yv;
+            geometry.minX = Math.min(geometry.minX, xv);
+            geometry.maxX = Math.max(geometry.maxX, xv);
+            if (!Double.isNaN(yv)) {
+                geometry.minY = Double.isNaN(geometry.minY) ? yv : Math.min(geometry.minY, yv);
+                geometry.maxY = Double.isNaN(geometry.maxY) ? yv : Math.max(geometry.maxY, yv);
+            }
+            i++;
+        }
+        geometry.size = i;
+        // Series are split into contiguous segments wherever a value is missing
+        int start = 0;
+        while (start < geometry.size) {
+            while (start < geometry.size && Double.isNaN(geometry.y[start])) {
+                start++;
+            }
+            int end = start;
+            while (end < geometry.size && !Double.isNaN(geometry.y[end])) {
+                end++;
+            }
+            if (end > start) {
+                geometry.addSegment(start, end);
+            }
+            start = end;
+        }
+        return geometry;
+    }
+
+    private static boolean isStacked(List<SeriesGeometry> geometry) {
+        if (geometry.isEmpty()) {
+            return true;
+        }
+        var group = geometry.get(0).stackGroup;
+        if (group == null || group.length != geometry.size()) {
+            return false;
+        }
+        for (int i = 0; i < geometry.size(); i++) {
+            if (group[i] != geometry.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Computes the lower and upper boundaries of each series' area, with missing values counting as zero.
+    // Where series are not sampled at the same points, values from the series beneath are interpolated.
+    private static void stack(List<SeriesGeometry> geometry) {
+        var group = geometry.toArray(new SeriesGeometry[0]);
+        double[] accX = new double[0];
+        double[] accY = new double[0];
+        for (var g : geometry) {
+            double[] mergedX = mergeSorted(accX, accX.length, g.x, g.size);
+            double[] bottom = new double[mergedX.length];
+            double[] top = new double[mergedX.length];
+            double minStack = Double.MAX_VALUE;
+            double maxStack = -Double.MAX_VALUE;
+            for (int i = 0; i < mergedX.length; i++) {
+                bottom[i] = accX.length == 0 ? 0 : interpolate(accX, accY, accX.length, mergedX[i]);
+                top[i] = bottom[i] + (g.size == 0 ? 0 : interpolate(g.x, g.y, g.size, mergedX[i]));
+                minStack = Math.min(minStack, Math.min(bottom[i], top[i]));
+                maxStack = Math.max(maxStack, Math.max(bottom[i], top[i]));
+            }
+            g.stackX = mergedX;
+            g.stackBottom = bottom;
+            g.stackTop = top;
+            g.stackSize = g.size == 0 ? 0 : mergedX.length;
+            g.minStack = minStack;
+            g.maxStack = maxStack;
+            g.stackGroup = group;
+            accX = mergedX;
+            accY = top;
+        }
+    }
+
+    private static double[] mergeSorted(double[] a, int aLength, double[] b, int bLength) {
+        double[] merged = new double[aLength + bLength];
+        int i = 0, j = 0, n = 0;
+        while (i < aLength || j < bLength) {
+            double v;
+            if (j >= bLength || (i < aLength && a[i] <= b[j])) {
+                v = a[i++];
+            } else {
+                v = b[j++];
+            }
+            if (n == 0 || merged[n - 1] != v) {
+                merged[n++] = v;
+            }
+        }
+        return Arrays.copyOf(merged, n);
+    }
+
+    private static double interpolate(double[] xs, double[] ys, int size, double x) {
+        int pos = Arrays.binarySearch(xs, 0, size, x);
+        if (pos >= 0) {
+            return valueOrZero(ys[pos]);
+        }
+        int higher = -pos - 1;
+        if (higher == 0) {
+            return valueOrZero(ys[0]);
+        }
+        if (higher >= size) {
+            return valueOrZero(ys[size - 1]);
+        }
+        int lower = higher - 1;
+        double yl = valueOrZero(ys[lower]);
+        double yh = valueOrZero(ys[higher]);
+        return yl + (yh - yl) * (x - xs[lower]) / (xs[higher] - xs[lower]);
+    }
+
+    private static double valueOrZero(double v) {
+        return Double.isNaN(v) ? 0.0 : v;
+    }
+
+    /**
+     * The geometry of a series, computed from the values of its samples, as used to draw it.
+     */
+    public static final class SeriesGeometry {
+        private final double[] x;
+        private final double[] y;
+        private int size = 0;
+        private double minX = Double.MAX_VALUE;
+        private double maxX = -Double.MAX_VALUE;
+        private double minY = Double.NaN;
+        private double maxY = Double.NaN;
+        private int[] segments = new int[2];
+        private int segmentCount = 0;
+        private double[] stackX, stackBottom, stackTop;
+        private int stackSize = 0;
+        private double minStack, maxStack;
+        private SeriesGeometry[] stackGroup;
+
+        private SeriesGeometry(int capacity) {
+            this.x = new double[capacity];
+            this.y = new double[capacity];
+        }
+
+        private void addSegment(int start, int end) {
+            if (segmentCount * 2 == segments.length) {
+                segments = Arrays.copyOf(segments, segments.length * 2);
+            }
+            segments[segmentCount * 2] = start;
+            segments[segmentCount * 2 + 1] = end;
+            segmentCount++;
+        }
+
+        /**
+         * Returns the number of samples in the series.
+         *
+         * @return the number of samples in the series.
+         */
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Holds the geometry a series is currently drawn with.
+     */
+    private class SeriesBuffer {
+        private final Series<X, Y> series;
+        private SeriesGeometry geometry;
+        private boolean dirty = true;
+
+        private SeriesBuffer(Series<X, Y> series) {
+            this.series = series;
+        }
+
+        private void invalidate() {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Maps numeric values along an axis to display positions, assuming the axis is linear.
+     */
+    private static class LinearMapping {
+        private final double offset;
+        private final double scale;
+
+        private LinearMapping(double offset, double scale) {
+            this.offset = offset;
+            this.scale = scale;
+        }
+
+        private static <T> LinearMapping of(Axis<T> axis, double a, double b) {
+            if (a == b) {
+                b = a + 1;
+            }
+            double pa = axis.getDisplayPosition(axis.toRealValue(a));
+            double pb = axis.getDisplayPosition(axis.toRealValue(b));
+            double scale = (pb - pa) / (b - a);
+            return new LinearMapping(pa - a * scale, scale);
+        }
+
+        private double apply(double v) {
+            return offset + v * scale;
+        }
+    }
+
+    /**
+     * Reduces a polyline whose points are sorted along the x axis to the first, lowest, highest and last points
+     * within each pixel column, which yields the same image as the complete polyline.
+     */
+    private static class PixelDecimator {
+        private double[] xs = new double[1024];
+        private double[] ys = new double[1024];
+        private int size;
+        private long column;
+        private double firstX, firstY, lastX, lastY, minX, minY, maxX, maxY;
+        private int count;
+
+        private void reset() {
+            size = 0;
+            count = 0;
+        }
+
+        private void add(double px, double py) {
+            long c = (long) Math.floor(px);
+            if (count > 0 && c != column) {
+                flush();
+            }
+            if (count == 0) {
+                column = c;
+                firstX = minX = maxX = px;
+                firstY = minY = maxY = py;
+            }
+            if (py < minY) {
+                minY = py;
+                minX = px;
+            }
+            if (py > maxY) {
+                maxY = py;
+                maxX = px;
+            }
+            lastX = px;
+            lastY = py;
+            count++;
+        }
+
+        private void flush() {
+            if (count == 0) {
+                return;
+            }
+            append(firstX, firstY);
+            if (count > 1) {
+                // Emit the extremes in the order in which they were encountered
+                if (minX <= maxX) {
+                    appendIfDistinct(minX, minY);
+                    appendIfDistinct(maxX, maxY);
+                } else {
+                    appendIfDistinct(maxX, maxY);
+                    appendIfDistinct(minX, minY);
+                }
+                appendIfDistinct(lastX, lastY);
+            }
+            count = 0;
+        }
+
+        private void appendIfDistinct(double px, double py) {
+            if (xs[size - 1] != px || ys[size - 1] != py) {
+                append(px, py);
+            }
+        }
+
+        private void append(double px, double py) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            xs[size] = px;
+            ys[size] = py;
+            size++;
+        }
+    }
+}
@@ -16,14 +16,15 @@
 
 package eu.binjr.common.xml;
 
+import eu.binjr.common.io.IOUtils;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
-import javax.xml.bind.JAXB;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParserFactory;
 import javax.xml.stream.XMLInputFactory;
@@ -34,7 +35,10 @@ import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A collections of convenience methods to help with serialization and deserialization of XML to and from Java objects.
@@ -42,11 +46,48 @@ import java.nio.file.Path;
  * @author Frederic Thevenet
  */
 public class XmlUtils {
+    private static final Map<Class<?>, JAXBContext> contextCache = new ConcurrentHashMap<>();
 
     private static class XMLInputFactoryHolder {
         private final static XMLInputFactory instance = XMLInputFactory.newInstance();
     }
 
+    /**
+     * A handler for the attributes of the root element of a document, invoked before the document is deserialized.
+     *
+     * @param <E> the type of exception thrown by the handler.
+     */
+    @FunctionalInterface
+    public interface RootElementHandler<E extends Exception> {
+        /**
+         * Handles the root element of a document.
+         *
+         * @param reader a {@link XMLStreamReader} positioned on the root element's start tag.
+         * @throws E if the document should not be deserialized.
+         */
+        void handle(XMLStreamReader reader) throws E;
+    }
+
+    /**
+     * Returns the {@link JAXBContext} for the specified class.
+     * <p>Creating a context is expensive, so a single one is created for each class and reused afterward.</p>
+     *
+     * @param docClass the class to get a context for.
+     * @return the {@link JAXBContext} for the specified class.
+     * @throws JAXBException if an error occurs while creating the context.
+     */
+    public static JAXBContext getContext(Class<?> docClass) throws JAXBException {
+        var context = contextCache.get(docClass);
+        if (context == null) {
+            context = JAXBContext.newInstance(docClass);
+            var previous = contextCache.putIfAbsent(docClass, context);
+            if (previous != null) {
+                context = previous;
+            }
+        }
+        return context;
+    }
+
     public static String getFirstAttributeValue(File file, String attribute) throws IOException, XMLStreamException {
         // Create stream reader
         XMLStreamReader xmlr = XMLInputFactoryHolder.instance.createXMLStreamReader(new FileInputStream(file));
@@ -79,6 +120,40 @@ public class XmlUtils {
         }
     }
 
+    /**
+     * Deserialize the XML content of a file into a Java object of the specified type, in a single pass in which the
+     * root element of the document is first handed over to the specified handler.
+     *
+     * @param docClass    The class of the object to unmarshall the XML as
+     * @param file        The file containing the XML to deserialize
+     * @param rootHandler A handler invoked with the root element before the document is deserialized
+     * @param <T>         The type of object to unmarshall the XML as
+     * @param <E>         The type of exception thrown by the handler
+     * @return The deserialized object
+     * @throws JAXBException      if an error occurs during deserialization
+     * @throws IOException        if an error occurs while reading the file
+     * @throws XMLStreamException if the document is not well formed XML
+     * @throws E                  if the handler rejects the document
+     */
+    public static <T, E extends Exception> T deSerialize(Class<T> docClass, File file, RootElementHandler<E> rootHandler)
+            throws JAXBException, IOException, XMLStreamException, E {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+            XMLStreamReader xmlr = XMLInputFactoryHolder.instance.createXMLStreamReader(in);
+            try {
+                while (xmlr.getEventType() != XMLStreamReader.START_ELEMENT) {
+                    if (!xmlr.hasNext()) {
+                        throw new XMLStreamException("No root element found in " + file.getPath());
+                    }
+                    xmlr.next();
+                }
+                rootHandler.handle(xmlr);
+                return getContext(docClass).createUnmarshaller().unmarshal(xmlr, docClass).getValue();
+            } finally {
+                xmlr.close();
+            }
+        }
+    }
+
     /**
      * Deserialize the XML content of a stream into a Java object of the specified type.
      *
@@ -106,7 +181,8 @@ public class XmlUtils {
     }
 
     private static <T> T deSerialize(Class<T> docClass, StreamSource source) throws JAXBException {
-        return JAXB.unmarshal(source, docClass);
+        Unmarshaller unmarshaller = getContext(docClass).createUnmarshaller();
+        return unmarshaller.unmarshal(source, docClass).getValue();
     }
 
     /**
@@ -129,12 +205,54 @@ public class XmlUtils {
         serialize(object, path.toFile());
     }
 
+    /**
+     * Serializes an object to a file.
+     * <p>The file is only replaced once the XML has been fully written.</p>
+     *
+     * @param object the object to serialize.
+     * @param file   the file to write the XML to.
+     * @param <T>    the type of the object to serialize.
+     * @throws JAXBException if an error occurs during serialization.
+     * @throws IOException   if an error occurs while writing the file.
+     */
     public static <T> void serialize(T object, File file) throws JAXBException, IOException {
-        try (FileOutputStream fout = new FileOutputStream(file)) {
-            serialize(object, fout);
+        var tmp = IOUtils.createSiblingTempFile(file.toPath());
+        try {
+            try (OutputStream fout = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                serialize(object, fout);
+            }
+            IOUtils.replaceAtomically(tmp, file.toPath());
+        } finally {
+            Files.deleteIfExists(tmp);
         }
     }
 
+    /**
+     * Writes XML content previously serialized with {@link #serializeToBytes(Object)} to a file, which is replaced
+     * atomically.
+     *
+     * @param content the serialized XML.
+     * @param path    the file to write the XML to.
+     * @throws IOException if an error occurs while writing the file.
+     */
+    public static void write(byte[] content, Path path) throws IOException {
+        IOUtils.writeAtomically(path, tmp -> Files.write(tmp, content));
+    }
+
+    /**
+     * Serializes an object to an array of bytes containing its XML representation, encoded in UTF-8.
+     *
+     * @param object the object to serialize.
+     * @param <T>    the type of the object to serialize.
+     * @return the XML representation of the object, encoded in UTF-8.
+     * @throws JAXBException if an error occurs during serialization.
+     */
+    public static <T> byte[] serializeToBytes(T object) throws JAXBException {
+        var out = new ByteArrayOutputStream();
+        serialize(object, out);
+        return out.toByteArray();
+    }
+
     public static <T> String serialize(T object) throws IOException, JAXBException {
         try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
             serialize(object, out);
@@ -144,9 +262,9 @@ public class XmlUtils {
     }
 
     public static <T> void serialize(T object, OutputStream out) throws JAXBException {
-        JAXBContext jaxbContext = JAXBContext.newInstance(object.getClass());
-        Marshaller jaxbMarshaller = jaxbContext.createMarshaller();
+        Marshaller jaxbMarshaller = getContext(object.getClass()).createMarshaller();
         jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
         jaxbMarshaller.marshal(object, out);
     }
+
 }
@@ -20,6 +20,7 @@ import eu.binjr.common.javafx.charts.XYChartCrosshair;
 import eu.binjr.common.text.BinaryPrefixFormatter;
 import eu.binjr.common.text.MetricPrefixFormatter;
 import eu.binjr.common.text.PrefixFormatter;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.Chart;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
 import javafx.beans.property.BooleanProperty;
@@ -31,6 +32,8 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.Closeable;
 import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -48,6 +51,9 @@ public class ChartViewPort implements Closeable {
     private final AtomicBoolean closing = new AtomicBoolean(false);
     private final BooleanProperty selected = new SimpleBooleanProperty(false);
     private XYChartCrosshair<ZonedDateTime, Double> crosshair;
+    private int downSamplingThreshold = 0;
+    private final Map<TimeSeriesInfo, XYChart.Series<ZonedDateTime, Double>> plottedSeries = new HashMap<>();
+    private final Map<TimeSeriesInfo, TimeSeriesProcessor> plottedProcessors = new HashMap<>();
 
     /**
      * Initializes a new instance of the {@link ChartViewPort} class.
@@ -112,6 +118,43 @@ public class ChartViewPort implements Closeable {
         return prefixFormatter;
     }
 
+    /**
+     * Returns the down-sampling threshold the chart was last plotted with.
+     *
+     * @return the down-sampling threshold the chart was last plotted with, or 0 if it was never plotted.
+     */
+    public int getDownSamplingThreshold() {
+        return downSamplingThreshold;
+    }
+
+    /**
+     * Sets the down-sampling threshold the chart was last plotted with.
+     *
+     * @param downSamplingThreshold the down-sampling threshold the chart was last plotted with.
+     */
+    public void setDownSamplingThreshold(int downSamplingThreshold) {
+        this.downSamplingThreshold = downSamplingThreshold;
+    }
+
+    /**
+     * Returns the {@link XYChart.Series} currently plotted on the chart, keyed by the {@link TimeSeriesInfo} they
+     * were built for.
+     *
+     * @return the {@link XYChart.Series} currently plotted on the chart.
+     */
+    Map<TimeSeriesInfo, XYChart.Series<ZonedDateTime, Double>> getPlottedSeries() {
+        return plottedSeries;
+    }
+
+    /**
+     * Returns the {@link TimeSeriesProcessor} instances the data of the plotted series was last copied from.
+     *
+     * @return the {@link TimeSeriesProcessor} instances the data of the plotted series was last copied from.
+     */
+    Map<TimeSeriesInfo, TimeSeriesProcessor> getPlottedProcessors() {
+        return plottedProcessors;
+    }
+
     /**
      * Returns the table view control holding the series info.
      *
@@ -134,6 +177,8 @@ public class ChartViewPort implements Closeable {
             seriesTable.setRowFactory(null);
             seriesTable.getColumns().clear();
             seriesTable.setItems(null);
+            plottedSeries.clear();
+            plottedProcessors.clear();
             if (crosshair != null) {
                 crosshair.dispose();
             }
@@ -18,7 +18,9 @@ package eu.binjr.core.controllers;
 
 import eu.binjr.common.javafx.bindings.BindingManager;
 import eu.binjr.common.javafx.controls.*;
+import eu.binjr.common.logging.Profiler;
 import eu.binjr.common.text.StringUtils;
+import eu.binjr.common.xml.XmlUtils;
 import eu.binjr.core.appearance.StageAppearanceManager;
 import eu.binjr.core.data.adapters.DataAdapter;
 import eu.binjr.core.data.adapters.DataAdapterFactory;
@@ -32,13 +34,17 @@ import eu.binjr.core.data.workspace.Chart;
 import eu.binjr.core.data.workspace.Source;
 import eu.binjr.core.data.workspace.Worksheet;
 import eu.binjr.core.data.workspace.Workspace;
+import eu.binjr.core.data.workspace.WorkspaceDataSnapshot;
 import eu.binjr.core.dialogs.Dialogs;
 import eu.binjr.core.preferences.AppEnvironment;
 import eu.binjr.core.preferences.UserHistory;
 import eu.binjr.core.preferences.UserPreferences;
 import eu.binjr.core.update.UpdateManager;
+import javafx.animation.PauseTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
 import javafx.beans.binding.Binding;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
@@ -81,9 +87,14 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -103,6 +114,11 @@ public class MainViewController implements Initializable {
     private static final double SEARCH_BAR_PANE_DISTANCE = 40;
     private static final PseudoClass HOVER_PSEUDO_CLASS = PseudoClass.getPseudoClass("hover");
     private final Map<EditableTab, WorksheetController> seriesControllers = new WeakHashMap<>();
+    private boolean worksheetActivationSuspended = false;
+    private final PauseTransition autoSaveDelay = new PauseTransition();
+    // Guards writes to the workspace's file, so that a pending auto-save cannot overwrite a more recent save.
+    private final Object workspaceFileLock = new Object();
+    private long workspaceSaveCount = 0;
     private final Map<TitledPane, Source> sourcesAdapters = new WeakHashMap<>();
     private final BooleanProperty searchBarVisible = new SimpleBooleanProperty(false);
     private final BooleanProperty searchBarHidden = new SimpleBooleanProperty(!searchBarVisible.get());
@@ -247,6 +263,16 @@ public class MainViewController implements Initializable {
         });
         sourcesPane.getPanes().addListener(this::onSourceTabChanged);
         saveMenuItem.disableProperty().bind(workspace.dirtyProperty().not());
+        autoSaveDelay.setOnFinished(event -> autoSaveWorkspace());
+        workspace.dirtyProperty().addListener((observable, oldValue, newValue) -> {
+            int delay = UserPreferences.getInstance().autoSaveWorkspaceAfterSeconds.get().intValue();
+            if (newValue && delay > 0) {
+                autoSaveDelay.setDuration(Duration.seconds(delay));
+                autoSaveDelay.playFromStart();
+            } else {
+                autoSaveDelay.stop();
+            }
+        });
         commandBar.setSibling(contentView);
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -681,23 +707,26 @@ public class MainViewController implements Initializable {
     private void loadWorkspace(File file) {
         if (confirmAndClearWorkspace()) {
             sourceMaskerPane.setVisible(true);
+            Map<Source, Throwable> startFailures = new ConcurrentHashMap<>();
             AsyncTaskManager.getInstance().submit(() -> {
                         Workspace wsFromfile = Workspace.from(file);
-                        for (Source source : wsFromfile.getSources()) {
-                            DataAdapter da = DataAdapterFactory.getInstance().newAdapter(source.getAdapterClassName());
-                            da.loadParams(source.getAdapterParams());
-                            da.setId(source.getAdapterId());
-                            source.setAdapter(da);
-                            loadSource(source);
-                        }
+                        restoreDataSnapshot(wsFromfile, file.toPath());
+                        startSources(wsFromfile.getSources(), startFailures);
                         return wsFromfile;
                     },
                     event -> {
                         Workspace loadedWorkspace = (Workspace) event.getSource().getValue();
                         workspace.setPath(file.toPath());
                         contentView.getDividers().stream().findFirst().ifPresent(d -> d.setPosition(loadedWorkspace.getDividerPosition()));
+                        Map<Source, TitledPane> panes = new LinkedHashMap<>();
+                        for (Source source : loadedWorkspace.getSources()) {
+                            panes.put(source, addSourcePane(source));
+                        }
                         sourceMaskerPane.setVisible(false);
                         loadWorksheets(loadedWorkspace);
+                        // Worksheets queue their initial fetches via Platform.runLater, so defer loading the trees
+                        // until after that, to give precedence to the data of the visible worksheet.
+                        Platform.runLater(() -> loadSourceTrees(panes, startFailures));
                     }, event -> {
                         sourceMaskerPane.setVisible(false);
                         Dialogs.notifyException("An error occurred while loading workspace from file " +
@@ -708,10 +737,110 @@ public class MainViewController implements Initializable {
         }
     }
 
+    private void startSources(Iterable<Source> sources, Map<Source, Throwable> startFailures) throws DataAdapterException {
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (Source source : sources) {
+            tasks.add(CompletableFuture.runAsync(() -> {
+                try {
+                    DataAdapter da = DataAdapterFactory.getInstance().newAdapter(source.getAdapterClassName());
+                    da.loadParams(source.getAdapterParams());
+                    da.setId(source.getAdapterId());
+                    source.setAdapter(da);
+                } catch (DataAdapterException e) {
+                    throw new CompletionException(e);
+                }
+                try {
+                    source.getAdapter().onStart();
+                } catch (Throwable t) {
+                    // Reported along with the source's tree, as it would have been if started then.
+                    startFailures.put(source, t);
+                }
+            }, AsyncTaskManager.getInstance()::submitSubTask));
+        }
+        try {
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).get();
+        } catch (ExecutionException e) {
+            var t = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+            if (t instanceof DataAdapterException) {
+                throw (DataAdapterException) t;
+            } else {
+                throw new DataAdapterException("Unexpected error while initializing sources: " + t.getMessage(), t);
+            }
+        } catch (InterruptedException e) {
+            throw new DataAdapterException("Sources initialization interrupted", e);
+        }
+    }
+
+    // Trees of the sources used by the visible worksheet are loaded right away and concurrently;
+    // those of other sources are only loaded once their pane is expanded.
+    private void loadSourceTrees(Map<Source, TitledPane> panes, Map<Source, Throwable> startFailures) {
+        Set<UUID> visibleAdapterIds = new HashSet<>();
+        var visibleWorksheet = getSelectedWorksheetController();
+        if (visibleWorksheet != null) {
+            visibleWorksheet.getWorksheet().getCharts().forEach(chart ->
+                    chart.getSeries().forEach(s -> visibleAdapterIds.add(s.getBinding().getAdapterId())));
+        }
+        TitledPane paneToExpand = null;
+        for (var entry : panes.entrySet()) {
+            Source source = entry.getKey();
+            TitledPane pane = entry.getValue();
+            if (visibleAdapterIds.contains(source.getAdapterId()) || startFailures.containsKey(source)) {
+                loadSourceTree(source, pane, startFailures.get(source));
+                if (paneToExpand == null && visibleAdapterIds.contains(source.getAdapterId())) {
+                    paneToExpand = pane;
+                }
+            } else {
+                pane.expandedProperty().addListener(new InvalidationListener() {
+                    @Override
+                    public void invalidated(Observable observable) {
+                        if (pane.isExpanded()) {
+                            pane.expandedProperty().removeListener(this);
+                            loadSourceTree(source, pane, null);
+                        }
+                    }
+                });
+            }
+        }
+        if (paneToExpand == null && !panes.isEmpty()) {
+            paneToExpand = new ArrayList<>(panes.values()).get(panes.size() - 1);
+        }
+        if (paneToExpand != null) {
+            paneToExpand.setExpanded(true);
+        }
+    }
+
+    private void loadSourceTree(Source source, TitledPane pane, Throwable startFailure) {
+        if (startFailure != null) {
+            Dialogs.notifyException("An error occurred while getting data from source " + source.getName(), startFailure, root);
+            closeFailedAdapter(source.getAdapter(), startFailure);
+            pane.setContent(buildSourcePaneContent(makePlaceholderTree("<Failed to connect to \"" + source.getName() + "\">", Color.RED), source));
+            return;
+        }
+        AsyncTaskManager.getInstance().submit(() -> buildTreeViewForTarget(source.getAdapter(), false),
+                event -> {
+                    var treeView = (Optional<TreeView<TimeSeriesBinding>>) event.getSource().getValue();
+                    pane.setContent(buildSourcePaneContent(treeView.orElseGet(() ->
+                            makePlaceholderTree("<Failed to connect to \"" + source.getName() + "\">", Color.RED)), source));
+                },
+                event -> Dialogs.notifyException("Unexpected error getting data adapter:",
+                        event.getSource().getException(),
+                        root));
+    }
+
     private void loadWorksheets(Workspace wsFromfile) {
         try {
-            for (Worksheet worksheet : wsFromfile.getWorksheets()) {
-                loadWorksheet(worksheet);
+            // Only activate the worksheet that ends up selected
+            worksheetActivationSuspended = true;
+            try {
+                for (Worksheet worksheet : wsFromfile.getWorksheets()) {
+                    loadWorksheet(worksheet);
+                }
+            } finally {
+                worksheetActivationSuspended = false;
+            }
+            var selectedTab = tearableTabPane.getSelectedTab();
+            if (selectedTab != null && seriesControllers.get(selectedTab) != null) {
+                activateWorksheet((EditableTab) selectedTab, seriesControllers.get(selectedTab), false);
             }
             workspace.cleanUp();
             UserHistory.getInstance().mostRecentWorkspaces.push(workspace.getPath());
@@ -729,7 +858,12 @@ public class MainViewController implements Initializable {
     private boolean saveWorkspace() {
         try {
             if (workspace.hasPath()) {
-                workspace.save();
+                long saveCount;
+                synchronized (workspaceFileLock) {
+                    saveCount = ++workspaceSaveCount;
+                    workspace.save();
+                }
+                writeDataSnapshot(takeDataSnapshot(workspace.getPath()), workspace.getPath(), saveCount);
                 return true;
             } else {
                 return saveWorkspaceAs();
@@ -751,7 +885,12 @@ public class MainViewController implements Initializable {
         File selectedFile = fileChooser.showSaveDialog(Dialogs.getStage(root));
         if (selectedFile != null) {
             try {
-                workspace.save(selectedFile);
+                long saveCount;
+                synchronized (workspaceFileLock) {
+                    saveCount = ++workspaceSaveCount;
+                    workspace.save(selectedFile);
+                }
+                writeDataSnapshot(takeDataSnapshot(workspace.getPath()), workspace.getPath(), saveCount);
                 UserHistory.getInstance().mostRecentWorkspaces.push(workspace.getPath());
                 return true;
             } catch (IOException e) {
@@ -763,6 +902,102 @@ public class MainViewController implements Initializable {
         return false;
     }
 
+    // Only the serialization of the workspace, which reads its state, is done on the UI thread;
+    // the file is written in the background.
+    private void autoSaveWorkspace() {
+        if (!workspace.isDirty() || !workspace.hasPath()) {
+            return;
+        }
+        Path path = workspace.getPath();
+        byte[] content;
+        try (Profiler ignored = Profiler.start("Serializing workspace for auto-save", logger::trace)) {
+            content = XmlUtils.serializeToBytes(workspace);
+        } catch (JAXBException e) {
+            logger.error("Error while serializing workspace for auto-save: " + e.getMessage());
+            logger.debug("Stack trace", e);
+            return;
+        }
+        var dataSnapshot = takeDataSnapshot(path);
+        long saveCount;
+        synchronized (workspaceFileLock) {
+            saveCount = ++workspaceSaveCount;
+        }
+        // Changes made from now on will be picked up by the next auto-save.
+        workspace.cleanUp();
+        AsyncTaskManager.getInstance().submit(() -> {
+                    synchronized (workspaceFileLock) {
+                        if (saveCount == workspaceSaveCount) {
+                            XmlUtils.write(content, path);
+                            if (dataSnapshot != null) {
+                                dataSnapshot.write(WorkspaceDataSnapshot.pathFor(path));
+                            }
+                        }
+                    }
+                    return null;
+                },
+                event -> logger.debug(() -> "Workspace auto-saved to " + path),
+                event -> {
+                    logger.error("Failed to auto-save workspace to " + path + ": " + event.getSource().getException().getMessage());
+                    logger.debug("Stack trace", event.getSource().getException());
+                    if (path.equals(workspace.getPath())) {
+                        // Let the user know that changes still need to be saved.
+                        workspace.dirtyProperty().setValue(true);
+                    }
+                });
+    }
+
+    // Returns null if snapshots are not to be saved, in which case any previous snapshot for the workspace is removed,
+    // so that it does not get restored with data that no longer matches.
+    private WorkspaceDataSnapshot takeDataSnapshot(Path workspacePath) {
+        if (!UserPreferences.getInstance().saveDataSnapshotWithWorkspace.get()) {
+            try {
+                Files.deleteIfExists(WorkspaceDataSnapshot.pathFor(workspacePath));
+            } catch (IOException e) {
+                logger.warn("Failed to remove data snapshot for workspace " + workspacePath + ": " + e.getMessage());
+                logger.debug("Stack trace", e);
+            }
+            return null;
+        }
+        return WorkspaceDataSnapshot.of(workspace);
+    }
+
+    // The snapshot is written under the same lock as the workspace file and only if no other save happened in the
+    // meantime, so that it cannot overwrite the snapshot of a more recent save.
+    private void writeDataSnapshot(WorkspaceDataSnapshot dataSnapshot, Path workspacePath, long saveCount) {
+        if (dataSnapshot == null) {
+            return;
+        }
+        Path snapshotPath = WorkspaceDataSnapshot.pathFor(workspacePath);
+        AsyncTaskManager.getInstance().submit(() -> {
+                    synchronized (workspaceFileLock) {
+                        if (saveCount == workspaceSaveCount) {
+                            dataSnapshot.write(snapshotPath);
+                        }
+                    }
+                    return null;
+                },
+                event -> logger.debug(() -> "Data snapshot saved to " + snapshotPath),
+                event -> {
+                    logger.error("Failed to save data snapshot to " + snapshotPath + ": " + event.getSource().getException().getMessage());
+                    logger.debug("Stack trace", event.getSource().getException());
+                });
+    }
+
+    private void restoreDataSnapshot(Workspace wsFromFile, Path workspacePath) {
+        Path snapshotPath = WorkspaceDataSnapshot.pathFor(workspacePath);
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            int restored = WorkspaceDataSnapshot.restore(wsFromFile, snapshotPath);
+            logger.debug(() -> "Restored data for " + restored + " series from " + snapshotPath);
+        } catch (Exception e) {
+            // Data will be retrieved from the sources anyway
+            logger.warn("Failed to restore data snapshot from " + snapshotPath + ": " + e.getMessage());
+            logger.debug("Stack trace", e);
+        }
+    }
+
     private void addSource(DataAdapter da) {
         Source newSource = Source.of(da);
         TitledPane newSourcePane = newSourcePane(newSource);
@@ -788,22 +1023,22 @@ public class MainViewController implements Initializable {
                 });
     }
 
-    private void loadSource(Source source) throws DataAdapterException {
+    private TitledPane addSourcePane(Source source) {
         TitledPane newSourcePane = newSourcePane(source);
-        Optional<TreeView<TimeSeriesBinding>> treeView;
-        treeView = buildTreeViewForTarget(source.getAdapter());
-        newSourcePane.setContent(buildSourcePaneContent((treeView.orElseGet(() -> {
-            FilterableTreeItem<TimeSeriesBinding> i = new FilterableTreeItem<>(new TimeSeriesBinding());
-            Label l = new Label("<Failed to connect to \"" + source.getName() + "\">");
-            l.setTextFill(Color.RED);
-            i.setGraphic(l);
-            return new TreeView<>(i);
-        })), source));
+        newSourcePane.setContent(buildSourcePaneContent(makePlaceholderTree("<Loading...>", null), source));
         sourcesAdapters.put(newSourcePane, source);
-        Platform.runLater(() -> {
-            sourcesPane.getPanes().add(newSourcePane);
-            newSourcePane.setExpanded(true);
-        });
+        sourcesPane.getPanes().add(newSourcePane);
+        return newSourcePane;
+    }
+
+    private TreeView<TimeSeriesBinding> makePlaceholderTree(String text, Color textFill) {
+        FilterableTreeItem<TimeSeriesBinding> i = new FilterableTreeItem<>(new TimeSeriesBinding());
+        Label l = new Label(text);
+        if (textFill != null) {
+            l.setTextFill(textFill);
+        }
+        i.setGraphic(l);
+        return new TreeView<>(i);
     }
 
     private Node buildSourcePaneContent(TreeView<TimeSeriesBinding> treeView, Source source) {
@@ -901,46 +1136,31 @@ public class MainViewController implements Initializable {
         try {
             WorksheetController current = new WorksheetController(this, worksheet,
                     sourcesAdapters.values().stream().map(Source::getAdapter).collect(Collectors.toList()));
-            try {
-                // Register reload listener
-                current.setReloadRequiredHandler(this::reloadController);
-                FXMLLoader fXMLLoader = new FXMLLoader(getClass().getResource("/eu/binjr/views/WorksheetView.fxml"));
-                fXMLLoader.setController(current);
-                Parent p = fXMLLoader.load();
-                newTab.setContent(p);
-            } catch (IOException ex) {
-                logger.error("Error loading time series", ex);
-            }
             seriesControllers.put(newTab, current);
-            current.getBindingManager().attachListener(current.selectedRangeProperty(),
-                    (ChangeListener<TimeRange>) (observable, oldValue, newValue) -> {
-                        if (getSelectedWorksheetController().equals(current) && current.getWorksheet().isTimeRangeLinked()) {
-                            seriesControllers.values().forEach(i -> {
-                                if (!i.equals(current) && i.getWorksheet().isTimeRangeLinked()) {
-                                    i.selectedRangeProperty().setValue(TimeRange.of(newValue));
-                                }
-                            });
-                        }
-                    }
-            );
-            current.getBindingManager().attachListener(current.getWorksheet().timeRangeLinkedProperty(),
+            current.getBindingManager().bindBidirectional(newTab.nameProperty(), worksheet.nameProperty());
+            newTab.setContextMenu(getTabContextMenu(newTab, worksheet, current.getBindingManager()));
+            // The worksheet's view is only loaded once its tab is selected, and is dropped along with
+            // the data it displays if the tab isn't selected again for a while.
+            PauseTransition reclaimDelay = current.getBindingManager().registerAnimation(new PauseTransition());
+            reclaimDelay.setOnFinished(event -> reclaimWorksheet(newTab, current));
+            current.getBindingManager().attachListener(newTab.selectedProperty(),
                     (ChangeListener<Boolean>) (observable, oldValue, newValue) -> {
                         if (newValue) {
-                            seriesControllers.values()
-                                    .stream()
-                                    .filter(c -> !c.equals(current) && c.getWorksheet().isTimeRangeLinked())
-                                    .map(c -> c.selectedRangeProperty().getValue())
-                                    .findFirst()
-                                    .ifPresent(timeRange -> current.selectedRangeProperty().setValue(timeRange));
+                            reclaimDelay.stop();
+                            if (!worksheetActivationSuspended) {
+                                activateWorksheet(newTab, current, setToEditMode);
+                            }
+                        } else if (current.isViewLoaded()) {
+                            int delay = UserPreferences.getInstance().reclaimHiddenWorksheetsAfterMinutes.get().intValue();
+                            if (delay > 0) {
+                                reclaimDelay.setDuration(Duration.minutes(delay));
+                                reclaimDelay.playFromStart();
+                            }
                         }
-                    }
-            );
-            current.getBindingManager().bindBidirectional(newTab.nameProperty(), worksheet.nameProperty());
-            if (setToEditMode) {
-                logger.trace("Toggle edit mode for worksheet");
-                current.setShowPropertiesPane(true);
+                    });
+            if (newTab.isSelected() && !worksheetActivationSuspended) {
+                activateWorksheet(newTab, current, setToEditMode);
             }
-            newTab.setContextMenu(getTabContextMenu(newTab, worksheet, current.getBindingManager()));
             return current;
         } catch (Exception e) {
             Dialogs.notifyException("Error loading worksheet into new tab", e, root);
@@ -948,6 +1168,68 @@ public class MainViewController implements Initializable {
         }
     }
 
+    private void activateWorksheet(EditableTab tab, WorksheetController current, boolean setToEditMode) {
+        if (current.isViewLoaded() || seriesControllers.get(tab) != current) {
+            return;
+        }
+        logger.debug(() -> "Activating worksheet " + current.getWorksheet().getName());
+        try {
+            // Register reload listener
+            current.setReloadRequiredHandler(this::reloadController);
+            FXMLLoader fXMLLoader = new FXMLLoader(getClass().getResource("/eu/binjr/views/WorksheetView.fxml"));
+            fXMLLoader.setController(current);
+            Parent p = fXMLLoader.load();
+            tab.setContent(p);
+        } catch (IOException ex) {
+            logger.error("Error loading time series", ex);
+        }
+        current.getBindingManager().attachListener(current.selectedRangeProperty(),
+                (ChangeListener<TimeRange>) (observable, oldValue, newValue) -> {
+                    if (getSelectedWorksheetController().equals(current) && current.getWorksheet().isTimeRangeLinked()) {
+                        seriesControllers.values().forEach(i -> {
+                            if (!i.equals(current) && i.getWorksheet().isTimeRangeLinked()) {
+                                if (i.isViewLoaded()) {
+                                    i.selectedRangeProperty().setValue(TimeRange.of(newValue));
+                                } else {
+                                    // Dormant worksheets will pick up the new range when activated
+                                    i.getWorksheet().setFromDateTime(newValue.getBeginning());
+                                    i.getWorksheet().setToDateTime(newValue.getEnd());
+                                }
+                            }
+                        });
+                    }
+                }
+        );
+        current.getBindingManager().attachListener(current.getWorksheet().timeRangeLinkedProperty(),
+                (ChangeListener<Boolean>) (observable, oldValue, newValue) -> {
+                    if (newValue) {
+                        seriesControllers.values()
+                                .stream()
+                                .filter(c -> !c.equals(current) && c.isViewLoaded() && c.getWorksheet().isTimeRangeLinked())
+                                .map(c -> c.selectedRangeProperty().getValue())
+                                .findFirst()
+                                .ifPresent(timeRange -> current.selectedRangeProperty().setValue(timeRange));
+                    }
+                }
+        );
+        if (setToEditMode) {
+            logger.trace("Toggle edit mode for worksheet");
+            current.setShowPropertiesPane(true);
+        }
+    }
+
+    private void reclaimWorksheet(EditableTab tab, WorksheetController current) {
+        if (tab.isSelected() || seriesControllers.get(tab) != current || !current.isViewLoaded()) {
+            return;
+        }
+        Worksheet worksheet = current.getWorksheet();
+        logger.debug(() -> "Reclaiming resources for worksheet " + worksheet.getName());
+        // The worksheet's series hold no data until it is activated again, so data snapshots saved in the meantime
+        // do not include it.
+        reloadController(current);
+        worksheet.getCharts().forEach(chart -> chart.getSeries().forEach(series -> series.setProcessor(null)));
+    }
+
     private EditableTab loadWorksheetInTab(Worksheet worksheet, boolean editMode) {
         workspace.setPresentationMode(false);
         Button closeTabButton = new ToolButtonBuilder<Button>()
@@ -1058,6 +1340,10 @@ public class MainViewController implements Initializable {
     }
 
     private Optional<TreeView<TimeSeriesBinding>> buildTreeViewForTarget(DataAdapter dp) {
+        return buildTreeViewForTarget(dp, true);
+    }
+
+    private Optional<TreeView<TimeSeriesBinding>> buildTreeViewForTarget(DataAdapter dp, boolean startAdapter) {
         Objects.requireNonNull(dp, "DataAdapter instance provided to buildTreeViewForTarget cannot be null.");
         TreeView<TimeSeriesBinding> treeView = new TreeView<>();
         treeView.setShowRoot(false);
@@ -1095,23 +1381,29 @@ public class MainViewController implements Initializable {
         };
         treeView.setCellFactory(ContextMenuTreeViewCell.forTreeView(getTreeViewContextMenu(treeView), dragAndDropCellFactory));
         try {
-            dp.onStart();
+            if (startAdapter) {
+                dp.onStart();
+            }
             FilterableTreeItem<TimeSeriesBinding> bindingTree = dp.getBindingTree();
             bindingTree.setExpanded(true);
             treeView.setRoot(bindingTree);
             return Optional.of(treeView);
         } catch (Throwable e) {
             Dialogs.notifyException("An error occurred while getting data from source " + dp.getSourceName(), e, root);
-            // Failed to load tree: attempt to close DataAdapter
-            try {
-                dp.close();
-            } catch (Throwable t) {
-                logger.warn("An error occurred while attempting to close DataAdapter " + dp.getId(), e);
-            }
+            closeFailedAdapter(dp, e);
         }
         return Optional.empty();
     }
 
+    private void closeFailedAdapter(DataAdapter dp, Throwable e) {
+        // Failed to load tree: attempt to close DataAdapter
+        try {
+            dp.close();
+        } catch (Throwable t) {
+            logger.warn("An error occurred while attempting to close DataAdapter " + dp.getId(), e);
+        }
+    }
+
 
     private void handleControlKey(KeyEvent event, boolean pressed) {
         switch (event.getCode()) {
@@ -1151,9 +1443,10 @@ public class MainViewController implements Initializable {
         return new ContextMenu(expandBranch, collapseBranch, new SeparatorMenuItem(), addToCurrent, addToNew);
     }
 
-    private void addToNewWorksheet(TabPane tabPane, Collection<TreeItem<TimeSeriesBinding>> rootItems) {
+    private void addToNewWorksheet(TabPane tabPane, Collection<TreeItem<TimeSeriesBinding>> treeItems) {
+        var rootItems = List.copyOf(treeItems);
         // Schedule for later execution in order to let other drag and dropped event to complete before modal dialog gets displayed
-        Platform.runLater(() -> {
+        WorksheetController.prefetchTreeItems(rootItems, () -> {
             try {
                 var charts = WorksheetController.treeItemsAsChartList(rootItems, root);
                 if (charts.isPresent()) {
@@ -25,13 +25,16 @@ import eu.binjr.common.logging.Profiler;
 import eu.binjr.core.data.adapters.DataAdapter;
 import eu.binjr.core.data.adapters.TimeSeriesBinding;
 import eu.binjr.core.data.async.AsyncTaskManager;
+import eu.binjr.core.data.async.RenderScheduler;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.NoAdapterFoundException;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.Chart;
 import eu.binjr.core.data.workspace.*;
 import eu.binjr.core.dialogs.Dialogs;
 import eu.binjr.core.preferences.UserHistory;
 import eu.binjr.core.preferences.UserPreferences;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.binding.Bindings;
@@ -69,6 +72,7 @@ import javafx.scene.text.TextAlignment;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.util.Duration;
+import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.controlsfx.control.MaskerPane;
@@ -80,6 +84,7 @@ import java.net.URL;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -96,6 +101,9 @@ public class WorksheetController implements Initializable, AutoCloseable {
     private static final DataFormat SERIALIZED_MIME_TYPE = new DataFormat("application/x-java-serialized-object");
     private static final Logger logger = LogManager.getLogger(WorksheetController.class);
     private static final double Y_AXIS_SEPARATION = 10;
+    private static final int MIN_DOWN_SAMPLING_THRESHOLD = 100;
+    private static final double RESIZE_THRESHOLD_TOLERANCE = 0.1;
+    private static final Duration RESIZE_REPLOT_DELAY = Duration.millis(300);
     private static PseudoClass HOVER_PSEUDO_CLASS = PseudoClass.getPseudoClass("hover");
     private final UserPreferences userPrefs = UserPreferences.getInstance();
     private final MainViewController parentController;
@@ -161,6 +169,7 @@ public class WorksheetController implements Initializable, AutoCloseable {
     private Pane worksheetTitleBlock;
     private VBox screenshotCanvas;
     private Profiler worksheetRefreshProfiler = null;
+    private boolean overlaidResizePending = false;
 
     public WorksheetController(MainViewController parentController, Worksheet worksheet, Collection<DataAdapter> sourcesAdapters)
             throws NoAdapterFoundException {
@@ -184,6 +193,30 @@ public class WorksheetController implements Initializable, AutoCloseable {
         return String.format("rgba(%d,%d,%d,%f)", Math.round(c.getRed() * 255), Math.round(c.getGreen() * 255), Math.round(c.getBlue() * 255), c.getOpacity());
     }
 
+    /**
+     * Lets the adapters backing the provided tree items retrieve in the background whatever they need to populate
+     * them, then invokes the provided action on the UI thread.
+     *
+     * @param treeItems the tree items whose leaves are about to be enumerated.
+     * @param action    the action to invoke once the tree items are ready.
+     */
+    public static void prefetchTreeItems(Collection<TreeItem<TimeSeriesBinding>> treeItems, Runnable action) {
+        var itemsByAdapter = treeItems.stream()
+                .filter(item -> item.getValue() != null && item.getValue().getAdapter() != null)
+                .collect(Collectors.groupingBy(item -> item.getValue().getAdapter()));
+        CompletableFuture.allOf(itemsByAdapter.entrySet()
+                .stream()
+                .map(e -> e.getKey().prefetch(e.getValue()))
+                .toArray(CompletableFuture[]::new))
+                .whenComplete((v, t) -> {
+                    if (t != null) {
+                        logger.warn("Error while prefetching tree items: " + t.getMessage());
+                        logger.debug("Stack trace", t);
+                    }
+                    Platform.runLater(action);
+                });
+    }
+
     public static Optional<List<Chart>> treeItemsAsChartList(Collection<TreeItem<TimeSeriesBinding>> treeItems, Node dlgRoot) {
         var charts = new ArrayList<Chart>();
         var totalBindings = 0;
@@ -265,7 +298,10 @@ public class WorksheetController implements Initializable, AutoCloseable {
             initChartViewPorts();
             initNavigationPane();
             initTableViewPane();
-            Platform.runLater(() -> invalidateAll(false, false, false));
+            Platform.runLater(() -> {
+                plotAvailableData();
+                invalidateAll(false, false, false);
+            });
             bindingManager.attachListener(userPrefs.downSamplingEnabled.property(), ((observable, oldValue, newValue) -> refresh()));
             bindingManager.attachListener(userPrefs.downSamplingThreshold.property(), ((observable, oldValue, newValue) -> {
                 if (userPrefs.downSamplingEnabled.get())
@@ -275,6 +311,14 @@ public class WorksheetController implements Initializable, AutoCloseable {
                 if (userPrefs.downSamplingEnabled.get())
                     refresh();
             }));
+            bindingManager.attachListener(userPrefs.adaptiveDownSamplingEnabled.property(), ((observable, oldValue, newValue) -> {
+                if (userPrefs.downSamplingEnabled.get())
+                    invalidateAll(false, false, false);
+            }));
+            bindingManager.attachListener(userPrefs.downSamplingSamplesPerPixel.property(), ((observable, oldValue, newValue) -> {
+                if (userPrefs.downSamplingEnabled.get() && userPrefs.adaptiveDownSamplingEnabled.get())
+                    invalidateAll(false, false, false);
+            }));
             bindingManager.attachListener(getWorksheet().chartLegendsVisibleProperty(), (ChangeListener<Boolean>) (observable, oldValue, newValue) -> {
                 setEditChartMode(newValue);
             });
@@ -346,22 +390,31 @@ public class WorksheetController implements Initializable, AutoCloseable {
                             currentChart.nameProperty(),
                             currentChart.unitProperty()));
             XYChart<ZonedDateTime, Double> viewPort;
-            switch (currentChart.getChartType()) {
-                case AREA:
-                    viewPort = new AreaChart<>(xAxis, yAxis);
-                    ((AreaChart) viewPort).setCreateSymbols(false);
-                    break;
-                case STACKED:
-                    viewPort = new NaNStackedAreaChart<>(xAxis, yAxis);
-                    ((StackedAreaChart) viewPort).setCreateSymbols(false);
-                    break;
-                case SCATTER:
-                    viewPort = new ScatterChart<>(xAxis, yAxis);
-                    break;
-                case LINE:
-                default:
-                    viewPort = new LineChart<>(xAxis, yAxis);
-                    ((LineChart) viewPort).setCreateSymbols(false);
+            if (userPrefs.canvasChartRenderingEnabled.get()) {
+                var canvasChart = new CanvasXYChart<>(xAxis, yAxis,
+                        CanvasXYChart.RenderingMode.valueOf(currentChart.getChartType().name()));
+                bindingManager.bind(canvasChart.strokeWidthProperty(), currentChart.strokeWidthProperty());
+                bindingManager.bind(canvasChart.fillOpacityProperty(), currentChart.graphOpacityProperty());
+                bindingManager.bind(canvasChart.showAreaOutlineProperty(), currentChart.showAreaOutlineProperty());
+                viewPort = canvasChart;
+            } else {
+                switch (currentChart.getChartType()) {
+                    case AREA:
+                        viewPort = new AreaChart<>(xAxis, yAxis);
+                        ((AreaChart) viewPort).setCreateSymbols(false);
+                        break;
+                    case STACKED:
+                        viewPort = new NaNStackedAreaChart<>(xAxis, yAxis);
+                        ((StackedAreaChart) viewPort).setCreateSymbols(false);
+                        break;
+                    case SCATTER:
+                        viewPort = new ScatterChart<>(xAxis, yAxis);
+                        break;
+                    case LINE:
+                    default:
+                        viewPort = new LineChart<>(xAxis, yAxis);
+                        ((LineChart) viewPort).setCreateSymbols(false);
+                }
             }
             viewPort.setCache(true);
             viewPort.setCacheHint(CacheHint.SPEED);
@@ -373,7 +426,11 @@ public class WorksheetController implements Initializable, AutoCloseable {
             viewPort.setLegendSide(Side.BOTTOM);
 
             viewPort.setAnimated(false);
-            viewPorts.add(new ChartViewPort(currentChart, viewPort, buildChartPropertiesController(currentChart)));
+            var chartViewPort = new ChartViewPort(currentChart, viewPort, buildChartPropertiesController(currentChart));
+            viewPorts.add(chartViewPort);
+            var resizeDelay = new PauseTransition(RESIZE_REPLOT_DELAY);
+            resizeDelay.setOnFinished(bindingManager.registerHandler(event -> replotOnResize(chartViewPort)));
+            bindingManager.attachListener(xAxis.widthProperty(), (InvalidationListener) observable -> resizeDelay.playFromStart());
             viewPort.getYAxis().addEventFilter(MouseEvent.MOUSE_CLICKED, bindingManager.registerHandler(event -> {
                 for (int i = 0; i < viewPorts.size(); i++) {
                     if (viewPorts.get(i).getChart() == viewPort) {
@@ -985,7 +1042,13 @@ public class WorksheetController implements Initializable, AutoCloseable {
                         TitledPane droppedPane = (TitledPane) event.getSource();
                         droppedPane.setExpanded(true);
                         ChartViewPort viewPort = (ChartViewPort) droppedPane.getUserData();
-                        addBindings(TreeViewUtils.flattenLeaves(item, true), viewPort.getDataStore());
+                        prefetchTreeItems(List.of(item), () -> {
+                            try {
+                                addBindings(TreeViewUtils.flattenLeaves(item, true), viewPort.getDataStore());
+                            } catch (Exception e) {
+                                Dialogs.notifyException("Error adding bindings to existing worksheet", e, root);
+                            }
+                        });
                     } catch (Exception e) {
                         Dialogs.notifyException("Error adding bindings to existing worksheet", e, root);
                     }
@@ -1058,6 +1121,11 @@ public class WorksheetController implements Initializable, AutoCloseable {
     }
 
     private void addToNewChart(Collection<TreeItem<TimeSeriesBinding>> treeItems) {
+        var items = List.copyOf(treeItems);
+        prefetchTreeItems(items, () -> doAddToNewChart(items));
+    }
+
+    private void doAddToNewChart(Collection<TreeItem<TimeSeriesBinding>> treeItems) {
         try {
             treeItemsAsChartList(treeItems, root).ifPresent(charts -> {
                 // Set the time range of the whole worksheet to accommodate the new bindings
@@ -1079,10 +1147,11 @@ public class WorksheetController implements Initializable, AutoCloseable {
 
     private void addToCurrentWorksheet(Collection<TreeItem<TimeSeriesBinding>> treeItems, Chart targetChart) {
         try {
+            var items = treeItems != null ? List.copyOf(treeItems) : List.<TreeItem<TimeSeriesBinding>>of();
             // Schedule for later execution in order to let other drag and dropped event to complete before modal dialog gets displayed
-            Platform.runLater(() -> {
-                if (treeItems != null && !treeItems.isEmpty()) {
-                    addBindings(treeItems.stream().flatMap(item -> TreeViewUtils.flattenLeaves(item, true).stream()).collect(Collectors.toList()), targetChart);
+            prefetchTreeItems(items, () -> {
+                if (!items.isEmpty()) {
+                    addBindings(items.stream().flatMap(item -> TreeViewUtils.flattenLeaves(item, true).stream()).collect(Collectors.toList()), targetChart);
                 }
             });
         } catch (Exception e) {
@@ -1110,20 +1179,22 @@ public class WorksheetController implements Initializable, AutoCloseable {
         if (closed.compareAndSet(false, true)) {
             logger.debug(() -> "Closing worksheetController " + this.toString());
             bindingManager.close();
-            currentState.close();
-            hCrosshair.selectedProperty().unbindBidirectional(userPrefs.horizontalMarkerOn.property());
-            vCrosshair.selectedProperty().unbindBidirectional(userPrefs.verticalMarkerOn.property());
-            currentState = null;
-            this.seriesTableContainer.getPanes().forEach(pane -> {
-                pane.setUserData(null);
-                pane.setContent(null);
-            });
-            this.seriesTableContainer.getPanes().clear();
-            //Workaround JDK-8220012
-            this.seriesTableContainer.getPanes().add(new TitledPane());
-            IOUtils.closeCollectionElements(viewPorts);
+            if (isViewLoaded()) {
+                currentState.close();
+                hCrosshair.selectedProperty().unbindBidirectional(userPrefs.horizontalMarkerOn.property());
+                vCrosshair.selectedProperty().unbindBidirectional(userPrefs.verticalMarkerOn.property());
+                currentState = null;
+                this.seriesTableContainer.getPanes().forEach(pane -> {
+                    pane.setUserData(null);
+                    pane.setContent(null);
+                });
+                this.seriesTableContainer.getPanes().clear();
+                //Workaround JDK-8220012
+                this.seriesTableContainer.getPanes().add(new TitledPane());
+                IOUtils.closeCollectionElements(viewPorts);
+                timeRangePicker.dispose();
+            }
             viewPorts = null;
-            timeRangePicker.dispose();
             this.worksheet = null;
         }
     }
@@ -1234,9 +1305,22 @@ public class WorksheetController implements Initializable, AutoCloseable {
     }
 
     protected void refresh() {
+        if (!isViewLoaded()) {
+            // Nothing to refresh until the worksheet is activated
+            return;
+        }
         invalidateAll(false, false, true);
     }
 
+    /**
+     * Returns true if the worksheet's view has been loaded, false if it is dormant.
+     *
+     * @return true if the worksheet's view has been loaded, false if it is dormant.
+     */
+    boolean isViewLoaded() {
+        return currentState != null;
+    }
+
     @FXML
     protected void handleHistoryBack(ActionEvent actionEvent) {
         restoreSelectionFromHistory(getWorksheet().getBackwardHistory(), getWorksheet().getForwardHistory());
@@ -1289,9 +1373,12 @@ public class WorksheetController implements Initializable, AutoCloseable {
     private void plotChart(ChartViewPort viewPort, XYChartSelection<ZonedDateTime, Double> currentSelection, boolean forceRefresh) {
         try (Profiler p = Profiler.start("Adding series to chart " + viewPort.getDataStore().getName(), logger::trace)) {
             nbBusyPlotTasks.setValue(nbBusyPlotTasks.get() + 1);
+            int threshold = computeDownSamplingThreshold(viewPort);
+            viewPort.setDownSamplingThreshold(threshold);
             AsyncTaskManager.getInstance().submit(() -> {
-                        viewPort.getDataStore().fetchDataFromSources(currentSelection.getStartX(), currentSelection.getEndX(), forceRefresh);
-                        return viewPort.getDataStore().getSeries()
+                        viewPort.getDataStore().fetchDataFromSources(currentSelection.getStartX(), currentSelection.getEndX(), forceRefresh, threshold);
+                        var toPlot = new LinkedHashMap<TimeSeriesInfo, TimeSeriesProcessor>();
+                        viewPort.getDataStore().getSeries()
                                 .stream()
                                 .filter(series -> {
                                     if (series.getProcessor() == null) {
@@ -1304,38 +1391,24 @@ public class WorksheetController implements Initializable, AutoCloseable {
                                     }
                                     return true;
                                 })
-                                .map(ts -> makeXYChartSeries(viewPort.getDataStore(), ts))
-                                .collect(Collectors.toList());
+                                .forEach(series -> toPlot.put(series, series.getProcessor()));
+                        // Work out what is to be drawn now rather than when the chart is laid out on the UI thread
+                        return new Pair<>(toPlot, prepareGeometry(viewPort, toPlot));
                     },
                     event -> {
-                        try {
-                            if (!closed.get()) {
-                                nbBusyPlotTasks.setValue(nbBusyPlotTasks.get() - 1);
-                                viewPort.getChart().getData().setAll((Collection<? extends XYChart.Series<ZonedDateTime, Double>>) event.getSource().getValue());
-                                for (Node n : viewPort.getChart().getChildrenUnmodifiable()) {
-                                    if (n instanceof Legend) {
-                                        int i = 0;
-                                        for (Legend.LegendItem legendItem : ((Legend) n).getItems()) {
-                                            legendItem.getSymbol().setStyle("-fx-background-color: " +
-                                                    colorToRgbaString(viewPort.getDataStore()
-                                                            .getSeries()
-                                                            .stream()
-                                                            .filter(TimeSeriesInfo::isSelected)
-                                                            .collect(Collectors.toList())
-                                                            .get(i)
-                                                            .getDisplayColor()));
-                                            i++;
-                                        }
-                                    }
-                                }
-                                if (getWorksheet().getChartLayout() == ChartLayout.OVERLAID) {
-                                    // Force a redraw of the charts and their Y Axis considering their proper width.
-                                    new DelayedAction(() -> viewPort.getChart().resize(0.0, 0.0), Duration.millis(50)).submit();
+                        var result = (Pair<Map<TimeSeriesInfo, TimeSeriesProcessor>, List<CanvasXYChart.SeriesGeometry>>) event.getSource().getValue();
+                        // Leave it to the scheduler to decide when to apply the update, so that charts of a
+                        // large worksheet do not all get updated on the same frame.
+                        RenderScheduler.getInstance().submit(() -> getRenderPriority(viewPort), () -> {
+                            try {
+                                if (!closed.get()) {
+                                    nbBusyPlotTasks.setValue(nbBusyPlotTasks.get() - 1);
+                                    applyPlotResult(viewPort, result.getKey(), result.getValue());
                                 }
+                            } catch (Exception e) {
+                                Dialogs.notifyException("Unexpected error while plotting data", e, root);
                             }
-                        } catch (Exception e) {
-                            Dialogs.notifyException("Unexpected error while plotting data", e, root);
-                        }
+                        });
                     },
                     event -> {
                         if (!closed.get()) {
@@ -1346,7 +1419,201 @@ public class WorksheetController implements Initializable, AutoCloseable {
         }
     }
 
-    private XYChart.Series<ZonedDateTime, Double> makeXYChartSeries(Chart currentChart, TimeSeriesInfo series) {
+    // Draws the data that series already hold, if any (e.g. restored along with the workspace),
+    // so that it can be looked at while fresh data is retrieved from the sources.
+    private void plotAvailableData() {
+        for (ChartViewPort viewPort : viewPorts) {
+            var toPlot = new LinkedHashMap<TimeSeriesInfo, TimeSeriesProcessor>();
+            viewPort.getDataStore().getSeries()
+                    .stream()
+                    .filter(series -> series.getProcessor() != null && series.isSelected())
+                    .forEach(series -> toPlot.put(series, series.getProcessor()));
+            if (!toPlot.isEmpty()) {
+                applyPlotResult(viewPort, toPlot, prepareGeometry(viewPort, toPlot));
+            }
+        }
+    }
+
+    private List<CanvasXYChart.SeriesGeometry> prepareGeometry(ChartViewPort viewPort,
+                                                               Map<TimeSeriesInfo, TimeSeriesProcessor> toPlot) {
+        if (!(viewPort.getChart() instanceof CanvasXYChart)) {
+            return null;
+        }
+        return ((CanvasXYChart<ZonedDateTime, Double>) viewPort.getChart()).prepareGeometry(
+                toPlot.values().stream().map(TimeSeriesProcessor::getData).collect(Collectors.toList()));
+    }
+
+    private void applyPlotResult(ChartViewPort viewPort,
+                                 Map<TimeSeriesInfo, TimeSeriesProcessor> toPlot,
+                                 List<CanvasXYChart.SeriesGeometry> geometry) {
+        try (Profiler p = Profiler.start("Applying plot results to chart " + viewPort.getDataStore().getName(), logger::trace)) {
+            updateXYChartSeries(viewPort, toPlot);
+            if (geometry != null) {
+                var canvasChart = (CanvasXYChart<ZonedDateTime, Double>) viewPort.getChart();
+                var it = geometry.iterator();
+                toPlot.keySet().forEach(ts -> canvasChart.setGeometry(viewPort.getPlottedSeries().get(ts), it.next()));
+            }
+            var plottedInfos = new ArrayList<>(toPlot.keySet());
+            for (Node n : viewPort.getChart().getChildrenUnmodifiable()) {
+                if (n instanceof Legend) {
+                    int i = 0;
+                    for (Legend.LegendItem legendItem : ((Legend) n).getItems()) {
+                        if (i < plottedInfos.size()) {
+                            legendItem.getSymbol().setStyle("-fx-background-color: " +
+                                    colorToRgbaString(plottedInfos.get(i).getDisplayColor()));
+                        }
+                        i++;
+                    }
+                }
+            }
+            if (getWorksheet().getChartLayout() == ChartLayout.OVERLAID && !overlaidResizePending) {
+                // Force a redraw of the charts and their Y Axis considering their proper width,
+                // once for all the charts updated within the delay.
+                overlaidResizePending = true;
+                new DelayedAction(() -> {
+                    overlaidResizePending = false;
+                    if (!closed.get()) {
+                        viewPorts.forEach(v -> v.getChart().resize(0.0, 0.0));
+                    }
+                }, Duration.millis(50)).submit();
+            }
+        }
+    }
+
+    // Updates for charts that can be seen are applied first, starting with the selected chart.
+    private int getRenderPriority(ChartViewPort viewPort) {
+        int priority = 0;
+        var chart = viewPort.getChart();
+        if (isShowing(chart)) {
+            priority += 2;
+        }
+        int index = viewPorts.indexOf(viewPort);
+        if (index >= 0 && index == getWorksheet().getSelectedChart()) {
+            priority += 1;
+        }
+        return priority;
+    }
+
+    private static boolean isShowing(Node node) {
+        var scene = node.getScene();
+        if (scene == null || scene.getWindow() == null || !scene.getWindow().isShowing()) {
+            return false;
+        }
+        for (Node n = node; n != null; n = n.getParent()) {
+            if (!n.isVisible()) {
+                return false;
+            }
+        }
+        var bounds = node.localToScene(node.getLayoutBounds());
+        return bounds.getMaxX() > 0 && bounds.getMaxY() > 0 &&
+                bounds.getMinX() < scene.getWidth() && bounds.getMinY() < scene.getHeight();
+    }
+
+    private int computeDownSamplingThreshold(ChartViewPort viewPort) {
+        int threshold = userPrefs.downSamplingThreshold.get().intValue();
+        if (!userPrefs.adaptiveDownSamplingEnabled.get()) {
+            return threshold;
+        }
+        double width = viewPort.getChart().getXAxis().getWidth();
+        if (width <= 0) {
+            // Chart hasn't been laid out yet
+            return threshold;
+        }
+        var scene = viewPort.getChart().getScene();
+        double outputScale = (scene != null && scene.getWindow() != null) ? scene.getWindow().getOutputScaleX() : 1.0;
+        return Math.max(MIN_DOWN_SAMPLING_THRESHOLD,
+                (int) Math.round(width * outputScale * userPrefs.downSamplingSamplesPerPixel.get().doubleValue()));
+    }
+
+    private void replotOnResize(ChartViewPort viewPort) {
+        if (closed.get() || !userPrefs.downSamplingEnabled.get() || !userPrefs.adaptiveDownSamplingEnabled.get()) {
+            return;
+        }
+        int previous = viewPort.getDownSamplingThreshold();
+        int threshold = computeDownSamplingThreshold(viewPort);
+        // Ignore small variations, to avoid reprocessing data for every pixel a chart is resized by
+        if (previous > 0 && Math.abs(threshold - previous) > previous * RESIZE_THRESHOLD_TOLERANCE) {
+            logger.debug(() -> "Down-sampling threshold for chart " + viewPort.getDataStore().getName() +
+                    " changed from " + previous + " to " + threshold);
+            invalidate(viewPort, false, false);
+        }
+    }
+
+    private void updateXYChartSeries(ChartViewPort viewPort, Map<TimeSeriesInfo, TimeSeriesProcessor> toPlot) {
+        try (Profiler p = Profiler.start("Updating series for chart " + viewPort.getDataStore().getName(), logger::trace)) {
+            var plottedSeries = viewPort.getPlottedSeries();
+            var plottedProcessors = viewPort.getPlottedProcessors();
+            // Forget about series that are no longer plotted
+            plottedSeries.entrySet().removeIf(entry -> {
+                if (toPlot.containsKey(entry.getKey())) {
+                    return false;
+                }
+                if (viewPort.getChart() instanceof CanvasXYChart) {
+                    ((CanvasXYChart<ZonedDateTime, Double>) viewPort.getChart()).seriesColorProperty(entry.getValue()).unbind();
+                }
+                plottedProcessors.remove(entry.getKey());
+                return true;
+            });
+            var ordered = new ArrayList<XYChart.Series<ZonedDateTime, Double>>(toPlot.size());
+            toPlot.forEach((ts, proc) -> {
+                var xySeries = plottedSeries.get(ts);
+                if (xySeries == null) {
+                    xySeries = makeXYChartSeries(viewPort, ts, proc);
+                    plottedSeries.put(ts, xySeries);
+                } else {
+                    xySeries.setName(ts.getDisplayName());
+                    // Only touch the data of series for which new data was fetched
+                    if (plottedProcessors.get(ts) != proc) {
+                        updateXYChartSeriesData(viewPort, ts, xySeries, proc);
+                    }
+                }
+                plottedProcessors.put(ts, proc);
+                ordered.add(xySeries);
+            });
+            // Add and remove series from the chart rather than resetting its content, so that the nodes
+            // and legend items of series already displayed are preserved.
+            var chartData = viewPort.getChart().getData();
+            chartData.retainAll(ordered);
+            for (int i = 0; i < ordered.size(); i++) {
+                var xySeries = ordered.get(i);
+                if (i < chartData.size() && chartData.get(i) == xySeries) {
+                    continue;
+                }
+                if (chartData.contains(xySeries)) {
+                    // Series were reordered
+                    chartData.setAll(ordered);
+                    break;
+                }
+                chartData.add(i, xySeries);
+            }
+        }
+    }
+
+    private void updateXYChartSeriesData(ChartViewPort viewPort,
+                                         TimeSeriesInfo series,
+                                         XYChart.Series<ZonedDateTime, Double> xySeries,
+                                         TimeSeriesProcessor proc) {
+        var newData = copyXYChartData(proc.getData());
+        var data = xySeries.getData();
+        int common = Math.min(data.size(), newData.size());
+        // Copy new values into existing samples, as removing samples from a displayed series is costly.
+        for (int i = 0; i < common; i++) {
+            var dst = data.get(i);
+            var src = newData.get(i);
+            dst.setXValue(src.getXValue());
+            dst.setYValue(src.getYValue());
+        }
+        if (newData.size() > common) {
+            var added = newData.subList(common, newData.size());
+            decorateXYChartData(viewPort, series, added);
+            data.addAll(added);
+        } else if (data.size() > common) {
+            data.remove(common, data.size());
+        }
+    }
+
+    private XYChart.Series<ZonedDateTime, Double> makeXYChartSeries(ChartViewPort viewPort, TimeSeriesInfo series, TimeSeriesProcessor proc) {
+        var currentChart = viewPort.getDataStore();
         try (Profiler p = Profiler.start("Building  XYChart.Series data for" + series.getDisplayName(), logger::trace)) {
             XYChart.Series<ZonedDateTime, Double> newSeries = new XYChart.Series<>();
             newSeries.setName(series.getDisplayName());
@@ -1357,16 +1624,19 @@ public class WorksheetController implements Initializable, AutoCloseable {
             r.setBackground(new Background(new BackgroundFill(series.getDisplayColor(), null, null)));
 
             newSeries.setNode(r);
-            newSeries.getData().setAll(series.getProcessor().getData());
-            if (currentChart.getChartType() == ChartType.SCATTER) {
-                for (var data : newSeries.getData()) {
-                    var c = new Circle();
-                    bindingManager.bind(c.radiusProperty(), currentChart.strokeWidthProperty());
-                    bindingManager.bind(c.fillProperty(), series.displayColorProperty());
-                    data.setNode(c);
-                }
-            } else {
-                bindingManager.attachListener(newSeries.nodeProperty(), (ChangeListener<Node>) (node, oldNode, newNode) -> {
+            var data = copyXYChartData(proc.getData());
+            decorateXYChartData(viewPort, series, data);
+            newSeries.getData().setAll(data);
+            if (viewPort.getChart() instanceof CanvasXYChart) {
+                // Series are drawn by the chart itself: no need to style nodes
+                ((CanvasXYChart<ZonedDateTime, Double>) viewPort.getChart()).seriesColorProperty(newSeries)
+                        .bind(series.displayColorProperty());
+                return newSeries;
+            }
+            if (currentChart.getChartType() != ChartType.SCATTER) {
+                // The listener and bindings below are only referenced by the series' own properties and nodes, so
+                // they do not need to be tracked by the binding manager and go away along with the series.
+                newSeries.nodeProperty().addListener((node, oldNode, newNode) -> {
                     if (newNode != null) {
                         switch (currentChart.getChartType()) {
                             case AREA:
@@ -1401,6 +1671,29 @@ public class WorksheetController implements Initializable, AutoCloseable {
         }
     }
 
+    // The samples of a displayed series are updated in place on each refresh, so they must not be those of the
+    // processor, which can be read from other threads.
+    private List<XYChart.Data<ZonedDateTime, Double>> copyXYChartData(Collection<XYChart.Data<ZonedDateTime, Double>> samples) {
+        var copy = new ArrayList<XYChart.Data<ZonedDateTime, Double>>(samples.size());
+        for (var sample : samples) {
+            copy.add(new XYChart.Data<>(sample.getXValue(), sample.getYValue()));
+        }
+        return copy;
+    }
+
+    private void decorateXYChartData(ChartViewPort viewPort, TimeSeriesInfo series, List<XYChart.Data<ZonedDateTime, Double>> data) {
+        var currentChart = viewPort.getDataStore();
+        if (viewPort.getChart() instanceof CanvasXYChart || currentChart.getChartType() != ChartType.SCATTER) {
+            return;
+        }
+        for (var sample : data) {
+            var c = new Circle();
+            c.radiusProperty().bind(currentChart.strokeWidthProperty());
+            c.fillProperty().bind(series.displayColorProperty());
+            sample.setNode(c);
+        }
+    }
+
     public void saveSnapshot() {
         WritableImage snapImg;
         boolean wasModeEdit = getWorksheet().isChartLegendsVisible();
@@ -17,18 +17,24 @@
 package eu.binjr.core.data.adapters;
 
 import eu.binjr.common.javafx.controls.TimeRange;
+import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.core.data.exceptions.NoAdapterFoundException;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import eu.binjr.core.preferences.UserPreferences;
+import javafx.scene.control.TreeItem;
 import org.eclipse.fx.ui.controls.tree.FilterableTreeItem;
 
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Provides the means to access a data source to retrieve time series data.
@@ -57,6 +63,67 @@ public interface DataAdapter extends AutoCloseable {
      */
     Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache) throws DataAdapterException;
 
+    /**
+     * Gets decoded data from the source as a map of {@link TimeSeriesProcessor}, for the time interval and {@link TimeSeriesInfo} specified,
+     * for a chart that reduces each series to the specified number of samples.
+     * <p>Sources that can down-sample or aggregate data themselves should use the threshold to avoid retrieving
+     * either much more or fewer samples than the chart needs; the default implementation ignores it and invokes
+     * {@link #fetchData(String, Instant, Instant, List, boolean)}.</p>
+     *
+     * @param path                  the path of the data in the source
+     * @param begin                 the start of the time interval.
+     * @param end                   the end of the time interval.
+     * @param seriesInfo            the series to get data from.
+     * @param bypassCache           true if adapter cache should be bypassed, false otherwise. This parameter is ignored if adapter does not support caching
+     * @param downSamplingThreshold the number of samples the chart reduces each series to, if down-sampling is enabled.
+     * @return the output stream in which to return data.
+     * @throws DataAdapterException if an error occurs while retrieving data from the source.
+     */
+    default Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold) throws DataAdapterException {
+        return fetchData(path, begin, end, seriesInfo, bypassCache);
+    }
+
+    /**
+     * Gets decoded data from the source as a map of {@link TimeSeriesProcessor}, for the time interval and {@link TimeSeriesInfo} specified,
+     * without blocking the calling thread.
+     * <p>The default implementation uses the down-sampling threshold from the user preferences.</p>
+     *
+     * @param path        the path of the data in the source
+     * @param begin       the start of the time interval.
+     * @param end         the end of the time interval.
+     * @param seriesInfo  the series to get data from.
+     * @param bypassCache true if adapter cache should be bypassed, false otherwise. This parameter is ignored if adapter does not support caching
+     * @return a {@link CompletableFuture} that completes with the data retrieved, or exceptionally with a {@link DataAdapterException}
+     * if an error occurs while retrieving data from the source.
+     */
+    default CompletableFuture<Map<TimeSeriesInfo, TimeSeriesProcessor>> fetchDataAsync(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache) {
+        return fetchDataAsync(path, begin, end, seriesInfo, bypassCache, UserPreferences.getInstance().downSamplingThreshold.get().intValue());
+    }
+
+    /**
+     * Gets decoded data from the source as a map of {@link TimeSeriesProcessor}, for the time interval and {@link TimeSeriesInfo} specified,
+     * for a chart that reduces each series to the specified number of samples, without blocking the calling thread.
+     * <p>The default implementation invokes {@link #fetchData(String, Instant, Instant, List, boolean, int)} on the sub-tasks thread pool.</p>
+     *
+     * @param path                  the path of the data in the source
+     * @param begin                 the start of the time interval.
+     * @param end                   the end of the time interval.
+     * @param seriesInfo            the series to get data from.
+     * @param bypassCache           true if adapter cache should be bypassed, false otherwise. This parameter is ignored if adapter does not support caching
+     * @param downSamplingThreshold the number of samples the chart reduces each series to, if down-sampling is enabled.
+     * @return a {@link CompletableFuture} that completes with the data retrieved, or exceptionally with a {@link DataAdapterException}
+     * if an error occurs while retrieving data from the source.
+     */
+    default CompletableFuture<Map<TimeSeriesInfo, TimeSeriesProcessor>> fetchDataAsync(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetchData(path, begin, end, seriesInfo, bypassCache, downSamplingThreshold);
+            } catch (DataAdapterException e) {
+                throw new CompletionException(e);
+            }
+        }, AsyncTaskManager.getInstance()::submitSubTask);
+    }
+
     /**
      * Gets the encoding used to decode textual data sent by the source.
      *
@@ -156,6 +223,18 @@ public interface DataAdapter extends AutoCloseable {
         return TimeRange.of(end.minusHours(24), end);
     }
 
+    /**
+     * Starts retrieving in the background whatever information is needed to populate the descendants of the
+     * specified tree items, so that their leaves can later be enumerated without blocking the UI thread.
+     * <p>This method is invoked on the UI thread. The default implementation does nothing.</p>
+     *
+     * @param treeItems the tree items whose descendants are about to be enumerated.
+     * @return a {@link CompletableFuture} that completes once the information has been retrieved.
+     */
+    default CompletableFuture<Void> prefetch(Collection<TreeItem<TimeSeriesBinding>> treeItems) {
+        return CompletableFuture.completedFuture(null);
+    }
+
     @Override
     void close();
 }
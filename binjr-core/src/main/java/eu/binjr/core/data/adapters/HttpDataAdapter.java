@@ -16,11 +16,16 @@
 
 package eu.binjr.core.data.adapters;
 
+import eu.binjr.common.function.CheckedFunction;
 import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.exceptions.*;
 import eu.binjr.core.preferences.AppEnvironment;
 import eu.binjr.core.preferences.UserPreferences;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.NameValuePair;
 import org.apache.http.auth.AuthSchemeProvider;
 import org.apache.http.auth.AuthScope;
@@ -31,19 +36,23 @@ import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.AuthSchemes;
 import org.apache.http.client.config.CookieSpecs;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.config.Registry;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.config.RegistryBuilder;
-import org.apache.http.conn.socket.ConnectionSocketFactory;
-import org.apache.http.conn.socket.PlainConnectionSocketFactory;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.impl.auth.SPNegoSchemeFactory;
 import org.apache.http.impl.client.AbstractResponseHandler;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
-import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
 import org.apache.http.ssl.SSLContexts;
 import org.apache.http.util.EntityUtils;
 import org.apache.logging.log4j.LogManager;
@@ -54,6 +63,7 @@ import javax.net.ssl.SSLHandshakeException;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.*;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -61,6 +71,12 @@ import java.security.Principal;
 import java.security.Security;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
 /**
@@ -73,7 +89,20 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
     protected static final String BASE_ADDRESS_PARAM_NAME = "baseUri";
     private final static Pattern uriSchemePattern = Pattern.compile("^[a-zA-Z]*://");
     private static final Logger logger = LogManager.getLogger(HttpDataAdapter.class);
-    private final CloseableHttpClient httpClient;
+    protected static final ResponseHandler<byte[]> BYTE_ARRAY_RESPONSE_HANDLER = new AbstractResponseHandler<>() {
+        @Override
+        public byte[] handleEntity(HttpEntity entity) throws IOException {
+            return EntityUtils.toByteArray(entity);
+        }
+    };
+    private static final HttpValidatorStore validatorStore =
+            new HttpValidatorStore(() -> UserPreferences.getInstance().httpValidatorStoreLocation.get(),
+                    () -> UserPreferences.getInstance().httpValidatorStoreMaxSizeMB.get().longValue() * 1024 * 1024);
+    private static final Object sharedClientLock = new Object();
+    private static CloseableHttpAsyncClient sharedClient;
+    private static int sharedClientRefCount = 0;
+    private final CloseableHttpAsyncClient httpClient;
+    private final AtomicBoolean httpClientReleased = new AtomicBoolean(false);
     private URL baseAddress;
 
     /**
@@ -83,7 +112,7 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
      */
     public HttpDataAdapter() throws CannotInitializeDataAdapterException {
         super();
-        httpClient = httpClientFactory();
+        httpClient = acquireHttpClient(this);
     }
 
     /**
@@ -95,7 +124,32 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
     public HttpDataAdapter(URL baseAddress) throws CannotInitializeDataAdapterException {
         super();
         this.baseAddress = baseAddress;
-        httpClient = httpClientFactory();
+        httpClient = acquireHttpClient(this);
+    }
+
+    // All adapters share a single client, and thus a single set of I/O threads, which is only kept around for
+    // as long as at least one adapter is open.
+    private static CloseableHttpAsyncClient acquireHttpClient(HttpDataAdapter adapter) throws CannotInitializeDataAdapterException {
+        synchronized (sharedClientLock) {
+            if (sharedClient == null) {
+                sharedClient = httpClientFactory(adapter);
+                sharedClient.start();
+            }
+            sharedClientRefCount++;
+            return sharedClient;
+        }
+    }
+
+    private static void releaseHttpClient(CloseableHttpAsyncClient client) throws IOException {
+        synchronized (sharedClientLock) {
+            if (client != sharedClient || --sharedClientRefCount > 0) {
+                return;
+            }
+            sharedClient = null;
+            sharedClientRefCount = 0;
+        }
+        logger.debug("Closing shared http client");
+        client.close();
     }
 
     protected static SSLContext createSslCustomContext() {
@@ -129,12 +183,40 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
 
     @Override
     public byte[] onCacheMiss(String path, Instant begin, Instant end) throws DataAdapterException {
-        return doHttpGet(craftFetchUri(path, begin, end), new AbstractResponseHandler<byte[]>() {
+        return onCacheMiss(path, begin, end, UserPreferences.getInstance().downSamplingThreshold.get().intValue());
+    }
+
+    @Override
+    protected byte[] onCacheMiss(String path, Instant begin, Instant end, int downSamplingThreshold) throws DataAdapterException {
+        return doHttpGet(craftFetchUri(path, begin, end, downSamplingThreshold), BYTE_ARRAY_RESPONSE_HANDLER);
+    }
+
+    @Override
+    protected CompletableFuture<byte[]> onCacheMissAsync(String path, Instant begin, Instant end, int downSamplingThreshold) {
+        try {
+            return doHttpGetAsync(craftFetchUri(path, begin, end, downSamplingThreshold), BYTE_ARRAY_RESPONSE_HANDLER);
+        } catch (DataAdapterException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    protected <R> R onCacheMiss(String path, Instant begin, Instant end, int downSamplingThreshold, CheckedFunction<InputStream, R, DataAdapterException> handler) throws DataAdapterException {
+        return doHttpGet(craftFetchUri(path, begin, end, downSamplingThreshold), new AbstractResponseHandler<R>() {
             @Override
-            public byte[] handleEntity(HttpEntity entity) throws IOException {
-                return EntityUtils.toByteArray(entity);
+            public R handleEntity(HttpEntity entity) throws IOException {
+                try (InputStream in = entity.getContent()) {
+                    return handler.apply(in);
+                } catch (DataAdapterException e) {
+                    throw new HandlerException(e);
+                }
             }
-        });
+        }, false, true);
+    }
+
+    @Override
+    protected boolean isStreamingEnabled() {
+        return UserPreferences.getInstance().httpResponseStreamingEnabled.get();
     }
 
     @Override
@@ -168,7 +250,9 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
     @Override
     public void close() {
         try {
-            this.httpClient.close();
+            if (httpClientReleased.compareAndSet(false, true)) {
+                releaseHttpClient(this.httpClient);
+            }
         } catch (IOException e) {
             logger.error("Error closing HttpDataAdapter", e);
         }
@@ -176,19 +260,169 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
     }
 
     protected <R> R doHttpGet(URI requestUri, ResponseHandler<R> responseHandler) throws DataAdapterException {
+        return doHttpGet(requestUri, responseHandler, false, false);
+    }
+
+    /**
+     * Executes an HTTP GET request, which is revalidated against a previously stored response if possible.
+     * <p>Responses that come with an {@code ETag} or {@code Last-Modified} header are stored persistently; subsequent
+     * requests for the same URI are then made conditional, and the stored response is handed over to the response
+     * handler when the server replies with {@code 304 Not Modified}.</p>
+     * <p>This is intended for resources that rarely change, such as the description of the source's tree.</p>
+     *
+     * @param requestUri      the URI of the request.
+     * @param responseHandler the handler for the response.
+     * @param <R>             the type of the result.
+     * @return the result of the response handler.
+     * @throws DataAdapterException if an error occurs while executing the request.
+     */
+    protected <R> R doConditionalHttpGet(URI requestUri, ResponseHandler<R> responseHandler) throws DataAdapterException {
+        return doHttpGet(requestUri, responseHandler, UserPreferences.getInstance().httpConditionalRequestsEnabled.get(), false);
+    }
+
+    /**
+     * Executes an HTTP GET request without blocking the calling thread.
+     * <p>No thread is used while waiting for the response: the response handler is invoked on the sub-tasks thread
+     * pool once the response has been fully received.</p>
+     *
+     * @param requestUri      the URI of the request.
+     * @param responseHandler the handler for the response.
+     * @param <R>             the type of the result.
+     * @return a {@link CompletableFuture} that completes with the result of the response handler, or exceptionally
+     * with a {@link DataAdapterException} if an error occurs while executing the request.
+     */
+    protected <R> CompletableFuture<R> doHttpGetAsync(URI requestUri, ResponseHandler<R> responseHandler) {
+        logger.debug(() -> "requestUri = " + requestUri);
+        return send(createRequest(requestUri, null), false)
+                .thenApplyAsync(response -> {
+                    try {
+                        return handleResponse(requestUri, response, responseHandler, false, null);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, AsyncTaskManager.getInstance()::submitSubTask)
+                .handle((result, t) -> {
+                    if (t != null) {
+                        throw new CompletionException(translateException(requestUri, t instanceof CompletionException ? t.getCause() : t));
+                    }
+                    return result;
+                });
+    }
+
+    private <R> R doHttpGet(URI requestUri, ResponseHandler<R> responseHandler, boolean conditional, boolean streaming) throws DataAdapterException {
         try (Profiler p = Profiler.start("Executing HTTP request: [" + requestUri.toString() + "]", logger::trace)) {
             logger.debug(() -> "requestUri = " + requestUri);
-            HttpGet httpget = new HttpGet(requestUri);
-            // Set user-agent pattern to workaround CAS server not proposing SPNEGO authentication unless it thinks agent can handle it.
-            httpget.setHeader("User-Agent", AppEnvironment.APP_NAME + "/" + AppEnvironment.getInstance().getVersion() + " (Authenticates like: Firefox/Safari/Internet Explorer)");
-            R result = httpClient.execute(httpget, responseHandler);
+            var stored = conditional ? validatorStore.get(requestUri) : null;
+            // The response is handled on the calling thread, so that it never waits on a pooled thread.
+            var response = send(createRequest(requestUri, stored), streaming).get();
+            return handleResponse(requestUri, response, responseHandler, conditional, stored);
+        } catch (ExecutionException e) {
+            throw translateException(requestUri, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SourceCommunicationException("Interrupted while waiting for a response to \"" + requestUri.toString() + "\"", e);
+        } catch (Exception e) {
+            throw translateException(requestUri, e);
+        }
+    }
+
+    private HttpGet createRequest(URI requestUri, HttpValidatorStore.StoredResponse stored) {
+        HttpGet httpget = new HttpGet(requestUri);
+        // Set user-agent pattern to workaround CAS server not proposing SPNEGO authentication unless it thinks agent can handle it.
+        httpget.setHeader("User-Agent", AppEnvironment.APP_NAME + "/" + AppEnvironment.getInstance().getVersion() + " (Authenticates like: Firefox/Safari/Internet Explorer)");
+        if (UserPreferences.getInstance().httpCompressionEnabled.get()) {
+            httpget.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+        }
+        if (stored != null) {
+            if (stored.getETag() != null) {
+                httpget.setHeader(HttpHeaders.IF_NONE_MATCH, stored.getETag());
+            }
+            if (stored.getLastModified() != null) {
+                httpget.setHeader(HttpHeaders.IF_MODIFIED_SINCE, stored.getLastModified());
+            }
+        }
+        return httpget;
+    }
+
+    private CompletableFuture<HttpResponse> send(HttpGet request, boolean streaming) {
+        var future = new CompletableFuture<HttpResponse>();
+        var callback = new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                future.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        };
+        if (streaming) {
+            // Complete as soon as headers are received, with an entity whose content is read as it is transferred.
+            httpClient.execute(HttpAsyncMethods.create(request), new StreamingResponseConsumer(future::complete), callback);
+        } else {
+            httpClient.execute(request, callback);
+        }
+        return future;
+    }
+
+    private <R> R handleResponse(URI requestUri,
+                                 HttpResponse response,
+                                 ResponseHandler<R> responseHandler,
+                                 boolean conditional,
+                                 HttpValidatorStore.StoredResponse stored) throws IOException, DataAdapterException {
+        var entity = response.getEntity();
+        try {
+            decompress(response);
+            R result = responseHandler.handleResponse(conditional ? revalidate(requestUri, response, stored) : response);
             if (result == null) {
                 throw new FetchingDataFromAdapterException("Invalid response to \"" + requestUri.toString() + "\"");
             }
             return result;
-        } catch (HttpResponseException e) {
+        } finally {
+            // Make sure the connection can be reused.
+            EntityUtils.consumeQuietly(entity);
+        }
+    }
+
+    private void decompress(HttpResponse response) {
+        var entity = response.getEntity();
+        if (entity == null || entity.getContentEncoding() == null) {
+            return;
+        }
+        for (var codec : entity.getContentEncoding().getElements()) {
+            switch (codec.getName().toLowerCase(Locale.ROOT)) {
+                case "gzip":
+                case "x-gzip":
+                    response.setEntity(new GzipDecompressingEntity(entity));
+                    return;
+                case "deflate":
+                    response.setEntity(new DeflateDecompressingEntity(entity));
+                    return;
+                case "identity":
+                    return;
+                default:
+                    logger.warn("Unsupported content encoding: " + codec.getName());
+            }
+        }
+    }
+
+    private DataAdapterException translateException(URI requestUri, Throwable e) {
+        if (e instanceof DataAdapterException) {
+            return (DataAdapterException) e;
+        }
+        if (e instanceof HandlerException) {
+            // Exceptions raised from within the handler are rethrown as they are, rather than as communication errors.
+            return ((HandlerException) e).getCause();
+        }
+        if (e instanceof HttpResponseException) {
             String msg;
-            switch (e.getStatusCode()) {
+            switch (((HttpResponseException) e).getStatusCode()) {
                 case 401:
                     msg = "Authentication failed while trying to access \"" + requestUri.toString() + "\"";
                     break;
@@ -206,30 +440,62 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
                     msg = "Error executing HTTP request \"" + requestUri.toString() + "\": " + e.getMessage();
                     break;
             }
-            throw new SourceCommunicationException(msg, e);
-        } catch (ConnectException e) {
-            throw new SourceCommunicationException(e.getMessage(), e);
-        } catch (UnknownHostException e) {
-            throw new SourceCommunicationException("Host \"" + baseAddress.getHost() + (baseAddress.getPort() > 0 ? ":"
+            return new SourceCommunicationException(msg, e);
+        }
+        if (e instanceof ConnectException) {
+            return new SourceCommunicationException(e.getMessage(), e);
+        }
+        if (e instanceof UnknownHostException) {
+            return new SourceCommunicationException("Host \"" + baseAddress.getHost() + (baseAddress.getPort() > 0 ? ":"
                     + baseAddress.getPort() : "") + "\" could not be found.", e);
-        } catch (SSLHandshakeException e) {
-            throw new SourceCommunicationException("An error occurred while negotiating connection security: " +
+        }
+        if (e instanceof SSLHandshakeException) {
+            return new SourceCommunicationException("An error occurred while negotiating connection security: " +
                     e.getMessage(), e);
-        } catch (IOException e) {
-            throw new SourceCommunicationException("IO error while communicating with host \"" + baseAddress.getHost() +
+        }
+        if (e instanceof IOException) {
+            return new SourceCommunicationException("IO error while communicating with host \"" + baseAddress.getHost() +
                     (baseAddress.getPort() > 0 ? ":" + baseAddress.getPort() : "") + "\": " + e.getMessage(), e);
-        } catch (Exception e) {
-            throw new SourceCommunicationException("Unexpected error in HTTP GET: " + e.getMessage(), e);
         }
+        return new SourceCommunicationException("Unexpected error in HTTP GET: " + e.getMessage(), e);
+    }
+
+    private HttpResponse revalidate(URI requestUri, HttpResponse response, HttpValidatorStore.StoredResponse stored) throws IOException {
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode == HttpStatus.SC_NOT_MODIFIED && stored != null) {
+            logger.debug(() -> "Resource at " + requestUri + " was not modified: using stored response");
+            EntityUtils.consumeQuietly(response.getEntity());
+            var storedResponse = new BasicHttpResponse(response.getProtocolVersion(), HttpStatus.SC_OK, "OK");
+            var entity = new ByteArrayEntity(stored.getContent());
+            entity.setContentType(stored.getContentType());
+            storedResponse.setEntity(entity);
+            return storedResponse;
+        }
+        var eTag = response.getFirstHeader(HttpHeaders.ETAG);
+        var lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        if (statusCode == HttpStatus.SC_OK && response.getEntity() != null && (eTag != null || lastModified != null)) {
+            var contentType = response.getEntity().getContentType();
+            var content = EntityUtils.toByteArray(response.getEntity());
+            validatorStore.put(requestUri, new HttpValidatorStore.StoredResponse(
+                    eTag != null ? eTag.getValue() : null,
+                    lastModified != null ? lastModified.getValue() : null,
+                    contentType != null ? contentType.getValue() : null,
+                    content));
+            var entity = new ByteArrayEntity(content);
+            entity.setContentType(contentType);
+            response.setEntity(entity);
+        }
+        return response;
     }
 
-    protected CloseableHttpClient httpClientFactory() throws CannotInitializeDataAdapterException {
+    private static CloseableHttpAsyncClient httpClientFactory(HttpDataAdapter adapter) throws CannotInitializeDataAdapterException {
         try {
-            SSLConnectionSocketFactory csf = new SSLConnectionSocketFactory(
+            var prefs = UserPreferences.getInstance();
+            SSLIOSessionStrategy sslStrategy = new SSLIOSessionStrategy(
                     createSslCustomContext(),
                     null,
                     null,
-                    SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+                    SSLIOSessionStrategy.getDefaultHostnameVerifier());
             RegistryBuilder<AuthSchemeProvider> schemeProviderBuilder = RegistryBuilder.create();
             schemeProviderBuilder.register(AuthSchemes.SPNEGO, new SPNegoSchemeFactory());
             CredentialsProvider credsProvider = new BasicCredentialsProvider();
@@ -247,29 +513,45 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
                         }
                     });
 
-            var clientBuilder = HttpClients.custom()
+            var clientBuilder = HttpAsyncClients.custom()
+                    // Do not keep the application alive for the sake of an adapter that was never closed.
+                    .setThreadFactory(new ThreadFactory() {
+                        final AtomicInteger threadNum = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r);
+                            thread.setName("http-client-thread-" + threadNum.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    })
                     .setDefaultAuthSchemeRegistry(schemeProviderBuilder.build())
                     .setDefaultCredentialsProvider(credsProvider)
-                    .setSSLSocketFactory(csf)
-                    .setDefaultRequestConfig(RequestConfig.custom().setCookieSpec(CookieSpecs.STANDARD).build());
-
-            if (UserPreferences.getInstance().httpPoolingEnabled.get()) {
-                Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder
-                        .<ConnectionSocketFactory>create()
-                        .register("https", csf)
-                        .register("http", new PlainConnectionSocketFactory())
-                        .build();
-                PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(socketFactoryRegistry);
-                cm.setDefaultMaxPerRoute(16);
-                cm.setMaxTotal(100);
-                clientBuilder.setConnectionManager(cm);
+                    .setSSLStrategy(sslStrategy)
+                    .setDefaultRequestConfig(RequestConfig.custom()
+                            .setCookieSpec(CookieSpecs.STANDARD)
+                            .setConnectTimeout(prefs.httpConnectTimeoutMs.get().intValue())
+                            .setSocketTimeout(prefs.httpSocketTimeoutMs.get().intValue())
+                            .build())
+                    .setDefaultIOReactorConfig(IOReactorConfig.custom()
+                            .setConnectTimeout(prefs.httpConnectTimeoutMs.get().intValue())
+                            .setSoTimeout(prefs.httpSocketTimeoutMs.get().intValue())
+                            .build())
+                    .setKeepAliveStrategy((response, context) -> {
+                        long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                        return duration > 0 ? duration : prefs.httpKeepAliveMs.get().longValue();
+                    });
+            if (prefs.httpPoolingEnabled.get()) {
+                clientBuilder.setMaxConnPerRoute(prefs.httpMaxConnectionsPerRoute.get().intValue());
+                clientBuilder.setMaxConnTotal(prefs.httpMaxConnectionsTotal.get().intValue());
                 logger.trace("Http client connection pooling is enabled");
             }
             return clientBuilder.build();
 
         } catch (Exception e) {
             throw new CannotInitializeDataAdapterException("Could not initialize adapter to source '" +
-                    this.getSourceName() + "': " + e.getMessage(), e);
+                    adapter.getSourceName() + "': " + e.getMessage(), e);
         }
     }
 
@@ -295,6 +577,21 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
 
     protected abstract URI craftFetchUri(String path, Instant begin, Instant end) throws DataAdapterException;
 
+    /**
+     * Returns the URI to fetch data from, for a chart that reduces each series to the specified number of samples.
+     * <p>The default implementation ignores the threshold and invokes {@link #craftFetchUri(String, Instant, Instant)}.</p>
+     *
+     * @param path                  the path of the data in the source
+     * @param begin                 the start of the time interval.
+     * @param end                   the end of the time interval.
+     * @param downSamplingThreshold the number of samples the chart reduces each series to.
+     * @return the URI to fetch data from.
+     * @throws DataAdapterException if an error occurs while crafting the URI.
+     */
+    protected URI craftFetchUri(String path, Instant begin, Instant end, int downSamplingThreshold) throws DataAdapterException {
+        return craftFetchUri(path, begin, end);
+    }
+
     /**
      * Returns the source's base address
      *
@@ -350,4 +647,14 @@ public abstract class HttpDataAdapter extends SimpleCachingDataAdapter {
         }
     }
 
+    private static class HandlerException extends IOException {
+        private HandlerException(DataAdapterException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized DataAdapterException getCause() {
+            return (DataAdapterException) super.getCause();
+        }
+    }
 }
@@ -0,0 +1,238 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.adapters;
+
+import eu.binjr.common.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A persistent store for the content of HTTP responses along with their validators ({@code ETag} and
+ * {@code Last-Modified} headers), so that they can be revalidated with a conditional request rather than downloaded
+ * again.
+ * <p>The size of the store is bounded: once it grows past its maximum size, the least recently used responses are
+ * removed.</p>
+ * <p>Stored responses may hold data only available to authenticated users: where the file system supports it, the
+ * store and its entries are created with access restricted to their owner.</p>
+ *
+ * @author Frederic Thevenet
+ */
+class HttpValidatorStore {
+    private static final Logger logger = LogManager.getLogger(HttpValidatorStore.class);
+    private static final int FORMAT_VERSION = 1;
+    private static final String ENTRY_EXTENSION = ".bin";
+    private final Supplier<Path> location;
+    private final LongSupplier maxSize;
+    // An estimate of the size of the store, or -1 if it hasn't been measured yet.
+    private final AtomicLong storeSize = new AtomicLong(-1);
+
+    /**
+     * Initializes a new instance of the {@link HttpValidatorStore} class.
+     *
+     * @param location provides the location of the store on the file system.
+     * @param maxSize  provides the maximum size of the store, in bytes.
+     */
+    HttpValidatorStore(Supplier<Path> location, LongSupplier maxSize) {
+        this.location = location;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the stored response for the specified URI, or null if there is none.
+     *
+     * @param uri the URI of the request.
+     * @return the stored response for the specified URI, or null if there is none.
+     */
+    StoredResponse get(URI uri) {
+        Path path = getEntryPath(uri);
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            var storedUri = in.readUTF();
+            if (!storedUri.equals(uri.toString())) {
+                return null;
+            }
+            var eTag = readNullableString(in);
+            var lastModified = readNullableString(in);
+            var contentType = readNullableString(in);
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            touch(path);
+            return new StoredResponse(eTag, lastModified, contentType, content);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.warn("Failed to read stored response for " + uri + ": " + e.getMessage());
+            logger.debug("Stack trace", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response for the specified URI, replacing any existing one.
+     *
+     * @param uri      the URI of the request.
+     * @param response the response to store.
+     */
+    void put(URI uri, StoredResponse response) {
+        Path path = getEntryPath(uri);
+        try {
+            if (!Files.isDirectory(path.getParent())) {
+                Files.createDirectories(path.getParent(), ownerOnly(path, "rwx------"));
+            }
+            IOUtils.writeAtomically(path, tmp -> {
+                try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeUTF(uri.toString());
+                    writeNullableString(out, response.getETag());
+                    writeNullableString(out, response.getLastModified());
+                    writeNullableString(out, response.getContentType());
+                    out.writeInt(response.getContent().length);
+                    out.write(response.getContent());
+                }
+            }, ownerOnly(path, "rw-------"));
+            // Replacing an entry overestimates the size of the store, which only brings the next measure forward.
+            if (storeSize.get() < 0 || storeSize.addAndGet(Files.size(path)) > maxSize.getAsLong()) {
+                prune(path.getParent());
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to store response for " + uri + ": " + e.getMessage());
+            logger.debug("Stack trace", e);
+        }
+    }
+
+    private static FileAttribute<?>[] ownerOnly(Path path, String permissions) {
+        if (path.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString(permissions))};
+        }
+        return new FileAttribute<?>[0];
+    }
+
+    private synchronized void prune(Path directory) throws IOException {
+        List<Map.Entry<Path, BasicFileAttributes>> entries = new ArrayList<>();
+        long total = 0;
+        try (var stream = Files.newDirectoryStream(directory, "*" + ENTRY_EXTENSION)) {
+            for (Path p : stream) {
+                try {
+                    var attributes = Files.readAttributes(p, BasicFileAttributes.class);
+                    entries.add(Map.entry(p, attributes));
+                    total += attributes.size();
+                } catch (NoSuchFileException e) {
+                    // Removed concurrently
+                }
+            }
+        }
+        // Remove the least recently used entries until the store is well below its maximum size, so that it isn't
+        // measured again on every write.
+        long target = maxSize.getAsLong() * 3 / 4;
+        if (total > maxSize.getAsLong()) {
+            entries.sort(Comparator.comparing(e -> e.getValue().lastModifiedTime()));
+            for (var entry : entries) {
+                if (total <= target) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(entry.getKey());
+                    total -= entry.getValue().size();
+                } catch (IOException e) {
+                    logger.warn("Failed to remove stored response " + entry.getKey() + ": " + e.getMessage());
+                    logger.debug("Stack trace", e);
+                }
+            }
+            final long remaining = total;
+            logger.debug(() -> "Pruned http validator store down to " + remaining + " bytes");
+        }
+        storeSize.set(total);
+    }
+
+    private void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+        } catch (IOException e) {
+            logger.debug("Failed to update last access time for " + path, e);
+        }
+    }
+
+    private Path getEntryPath(URI uri) {
+        return location.get().resolve(UUID.nameUUIDFromBytes(uri.toString().getBytes(StandardCharsets.UTF_8)) + ENTRY_EXTENSION);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    /**
+     * The content of an HTTP response, along with its validators.
+     */
+    static class StoredResponse {
+        private final String eTag;
+        private final String lastModified;
+        private final String contentType;
+        private final byte[] content;
+
+        StoredResponse(String eTag, String lastModified, String contentType, byte[] content) {
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+            this.content = content;
+        }
+
+        String getETag() {
+            return eTag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        String getContentType() {
+            return contentType;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+    }
+}
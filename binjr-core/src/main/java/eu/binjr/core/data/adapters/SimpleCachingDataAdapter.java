@@ -16,17 +16,29 @@
 
 package eu.binjr.core.data.adapters;
 
+import eu.binjr.common.function.CheckedFunction;
+import eu.binjr.common.io.TeeInputStream;
+import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.codec.Decoder;
 import eu.binjr.core.data.exceptions.DataAdapterException;
 import eu.binjr.common.cache.LRUMapCapacityBound;
+import eu.binjr.core.data.exceptions.FetchingDataFromAdapterException;
+import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
+import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import eu.binjr.core.preferences.UserPreferences;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.SoftReference;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * An abstract implementation of {@link SerializedDataAdapter} that manages a cache in between the adapter and the data source.
@@ -59,12 +71,87 @@ public abstract class SimpleCachingDataAdapter extends SerializedDataAdapter {
 
     @Override
     public InputStream fetchRawData(String path, Instant begin, Instant end, boolean bypassCache) throws DataAdapterException {
-        byte[] payload = null;
-        String cacheEntryKey = String.format("%s%d%d", path, begin.toEpochMilli(), end.toEpochMilli());
-        if (!bypassCache) {
-            SoftReference<byte[]> cacheHit = cache.get(cacheEntryKey);
-            payload = cacheHit != null ? cacheHit.get() : null;
+        return new ByteArrayInputStream(fetchPayload(path, begin, end, bypassCache, getDefaultDownSamplingThreshold()));
+    }
+
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache)
+            throws DataAdapterException {
+        return fetchData(path, begin, end, seriesInfo, bypassCache, getDefaultDownSamplingThreshold());
+    }
+
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> fetchData(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold)
+            throws DataAdapterException {
+        if (closed) {
+            throw new IllegalStateException("An attempt was made to fetch data from a closed adapter");
+        }
+        String cacheEntryKey = getCacheEntryKey(path, begin, end, downSamplingThreshold);
+        byte[] payload = bypassCache ? null : getCachedPayload(cacheEntryKey);
+        try {
+            if (payload == null && isStreamingEnabled()) {
+                logger.trace(() -> String.format("Streaming data for entry %s %s %s", path, begin.toString(), end.toString()));
+                // Decode the data as it is retrieved from the source, while keeping a copy of it for the cache.
+                var copy = new ByteArrayOutputStream();
+                var result = onCacheMiss(path, begin, end, downSamplingThreshold, in -> {
+                    try (var tee = new TeeInputStream(in, copy)) {
+                        return this.getDecoder().decode(tee, seriesInfo);
+                    } catch (IOException e) {
+                        throw new FetchingDataFromAdapterException("Error recovering data from source", e);
+                    }
+                });
+                cache.put(cacheEntryKey, new SoftReference<>(copy.toByteArray()));
+                return result;
+            }
+            // The payload is already fully buffered: let the decoder work on it directly.
+            return this.getDecoder().decode(payload != null ? payload : fetchPayload(path, begin, end, true, downSamplingThreshold), seriesInfo);
+        } catch (IOException e) {
+            throw new DataAdapterException("Error recovering data from source", e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<TimeSeriesInfo, TimeSeriesProcessor>> fetchDataAsync(String path, Instant begin, Instant end, List<TimeSeriesInfo> seriesInfo, boolean bypassCache, int downSamplingThreshold) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("An attempt was made to fetch data from a closed adapter"));
+        }
+        String cacheEntryKey = getCacheEntryKey(path, begin, end, downSamplingThreshold);
+        if ((!bypassCache && getCachedPayload(cacheEntryKey) != null) || isStreamingEnabled()) {
+            return super.fetchDataAsync(path, begin, end, seriesInfo, bypassCache, downSamplingThreshold);
         }
+        logger.trace(() -> String.format(
+                "%s for entry %s %s %s",
+                bypassCache ? "Cache was explicitly bypassed" : "Cache miss",
+                path,
+                begin.toString(),
+                end.toString()));
+        return onCacheMissAsync(path, begin, end, downSamplingThreshold).thenApplyAsync(payload -> {
+            cache.put(cacheEntryKey, new SoftReference<>(payload));
+            try {
+                return this.getDecoder().decode(payload, seriesInfo);
+            } catch (DataAdapterException e) {
+                throw new CompletionException(e);
+            } catch (IOException e) {
+                throw new CompletionException(new DataAdapterException("Error recovering data from source", e));
+            }
+        }, AsyncTaskManager.getInstance()::submitSubTask);
+    }
+
+    private String getCacheEntryKey(String path, Instant begin, Instant end, int downSamplingThreshold) {
+        if (isPayloadDownSampled()) {
+            return String.format("%s%d%d@%d", path, begin.toEpochMilli(), end.toEpochMilli(), downSamplingThreshold);
+        }
+        return String.format("%s%d%d", path, begin.toEpochMilli(), end.toEpochMilli());
+    }
+
+    private byte[] getCachedPayload(String cacheEntryKey) {
+        SoftReference<byte[]> cacheHit = cache.get(cacheEntryKey);
+        return cacheHit != null ? cacheHit.get() : null;
+    }
+
+    private byte[] fetchPayload(String path, Instant begin, Instant end, boolean bypassCache, int downSamplingThreshold) throws DataAdapterException {
+        String cacheEntryKey = getCacheEntryKey(path, begin, end, downSamplingThreshold);
+        byte[] payload = bypassCache ? null : getCachedPayload(cacheEntryKey);
         if (payload == null) {
             logger.trace(() -> String.format(
                     "%s for entry %s %s %s",
@@ -72,12 +159,16 @@ public abstract class SimpleCachingDataAdapter extends SerializedDataAdapter {
                     path,
                     begin.toString(),
                     end.toString()));
-            payload = onCacheMiss(path, begin, end);
+            payload = onCacheMiss(path, begin, end, downSamplingThreshold);
             cache.put(cacheEntryKey, new SoftReference<>(payload));
         } else {
             logger.trace(() -> String.format("Data successfully retrieved from cache for %s %s %s", path, begin.toString(), end.toString()));
         }
-        return new ByteArrayInputStream(payload);
+        return payload;
+    }
+
+    private static int getDefaultDownSamplingThreshold() {
+        return UserPreferences.getInstance().downSamplingThreshold.get().intValue();
     }
 
     /**
@@ -91,6 +182,84 @@ public abstract class SimpleCachingDataAdapter extends SerializedDataAdapter {
      */
     public abstract byte[] onCacheMiss(String path, Instant begin, Instant end) throws DataAdapterException;
 
+    /**
+     * Gets raw data from the source for the time interval specified, for a chart that reduces each series to the
+     * specified number of samples.
+     * <p>The default implementation ignores the threshold and invokes {@link #onCacheMiss(String, Instant, Instant)}.</p>
+     *
+     * @param path                  the path of the data in the source
+     * @param begin                 the start of the time interval.
+     * @param end                   the end of the time interval.
+     * @param downSamplingThreshold the number of samples the chart reduces each series to.
+     * @return the data to store in the cache.
+     * @throws DataAdapterException if an error occurs while retrieving data from the source.
+     */
+    protected byte[] onCacheMiss(String path, Instant begin, Instant end, int downSamplingThreshold) throws DataAdapterException {
+        return onCacheMiss(path, begin, end);
+    }
+
+    /**
+     * Gets raw data from the source for the time interval specified, without blocking the calling thread.
+     * <p>The default implementation invokes {@link #onCacheMiss(String, Instant, Instant, int)} on the sub-tasks
+     * thread pool.</p>
+     *
+     * @param path                  the path of the data in the source
+     * @param begin                 the start of the time interval.
+     * @param end                   the end of the time interval.
+     * @param downSamplingThreshold the number of samples the chart reduces each series to.
+     * @return a {@link CompletableFuture} that completes with the data to store in the cache.
+     */
+    protected CompletableFuture<byte[]> onCacheMissAsync(String path, Instant begin, Instant end, int downSamplingThreshold) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return onCacheMiss(path, begin, end, downSamplingThreshold);
+            } catch (DataAdapterException e) {
+                throw new CompletionException(e);
+            }
+        }, AsyncTaskManager.getInstance()::submitSubTask);
+    }
+
+    /**
+     * Gets raw data from the source for the time interval specified, and hands it over as a stream to the provided
+     * handler while it is being retrieved.
+     * <p>The default implementation fully retrieves the data via {@link #onCacheMiss(String, Instant, Instant, int)}
+     * before handing it over.</p>
+     *
+     * @param path                  the path of the data in the source
+     * @param begin                 the start of the time interval.
+     * @param end                   the end of the time interval.
+     * @param downSamplingThreshold the number of samples the chart reduces each series to.
+     * @param handler               the function to apply to the stream of data.
+     * @param <R>                   the type of the result.
+     * @return the result of the handler.
+     * @throws DataAdapterException if an error occurs while retrieving data from the source.
+     */
+    protected <R> R onCacheMiss(String path, Instant begin, Instant end, int downSamplingThreshold, CheckedFunction<InputStream, R, DataAdapterException> handler) throws DataAdapterException {
+        return handler.apply(new ByteArrayInputStream(onCacheMiss(path, begin, end, downSamplingThreshold)));
+    }
+
+    /**
+     * Returns true if data missing from the cache should be decoded while it is being retrieved from the source,
+     * false if it should be fully retrieved first.
+     *
+     * @return true if data missing from the cache should be decoded while it is being retrieved from the source,
+     * false if it should be fully retrieved first.
+     */
+    protected boolean isStreamingEnabled() {
+        return false;
+    }
+
+    /**
+     * Returns true if the source down-samples the data it returns according to the threshold of the requesting chart,
+     * in which case payloads are cached separately for each threshold, false otherwise.
+     *
+     * @return true if the source down-samples the data it returns according to the threshold of the requesting chart,
+     * false otherwise.
+     */
+    protected boolean isPayloadDownSampled() {
+        return false;
+    }
+
     @Override
     public void close() {
         try {
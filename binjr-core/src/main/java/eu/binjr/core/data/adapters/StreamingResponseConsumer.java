@@ -0,0 +1,124 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.adapters;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.entity.ContentInputStream;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.SharedInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * An asynchronous response consumer that hands the response over as soon as its headers have been received, with an
+ * entity whose content can be read while it is still being transferred.
+ * <p>Content is transferred through a bounded buffer: the connection stops reading from the network when the buffer
+ * is full, until the entity's content is read further.</p>
+ *
+ * @author Frederic Thevenet
+ */
+class StreamingResponseConsumer extends AbstractAsyncResponseConsumer<HttpResponse> {
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private final Consumer<HttpResponse> onHeadersReceived;
+    private volatile HttpResponse response;
+    private volatile SharedInputBuffer buffer;
+    private volatile Exception failure;
+
+    /**
+     * Initializes a new instance of the {@link StreamingResponseConsumer} class.
+     *
+     * @param onHeadersReceived invoked with the response as soon as its headers have been received.
+     */
+    StreamingResponseConsumer(Consumer<HttpResponse> onHeadersReceived) {
+        this.onHeadersReceived = onHeadersReceived;
+    }
+
+    @Override
+    protected void onResponseReceived(HttpResponse response) {
+        this.response = response;
+    }
+
+    @Override
+    protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+        buffer = new SharedInputBuffer(BUFFER_SIZE);
+        var streamingEntity = new BasicHttpEntity();
+        streamingEntity.setContentType(entity.getContentType());
+        streamingEntity.setContentEncoding(entity.getContentEncoding());
+        streamingEntity.setContentLength(entity.getContentLength());
+        streamingEntity.setChunked(entity.isChunked());
+        streamingEntity.setContent(new AbortableInputStream(new ContentInputStream(buffer)));
+        response.setEntity(streamingEntity);
+        onHeadersReceived.accept(response);
+    }
+
+    @Override
+    protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+        buffer.consumeContent(decoder, ioControl);
+    }
+
+    @Override
+    protected HttpResponse buildResult(HttpContext context) {
+        if (buffer == null) {
+            // No entity: hand the response over now.
+            onHeadersReceived.accept(response);
+        }
+        return response;
+    }
+
+    @Override
+    protected void releaseResources() {
+        if (buffer != null && getResult() == null) {
+            // The exchange failed or was cancelled while the content was being read.
+            failure = getException() != null ? getException() : new IOException("Request was cancelled");
+            buffer.shutdown();
+        }
+    }
+
+    private class AbortableInputStream extends FilterInputStream {
+        private AbortableInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return checkFailure(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return checkFailure(super.read(b, off, len));
+        }
+
+        // An aborted buffer reports the end of the stream: make sure a truncated content is not mistaken for a
+        // complete one.
+        private int checkFailure(int n) throws IOException {
+            if (n < 0 && failure != null) {
+                throw new IOException("Failed to retrieve response content: " + failure.getMessage(), failure);
+            }
+            return n;
+        }
+    }
+}
@@ -23,8 +23,12 @@ import javafx.event.EventHandler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Defines methods to submit operation to be executed asynchronously to the UI thread, as well as a thread pool to run these tasks.
@@ -95,6 +99,55 @@ public class AsyncTaskManager {
         return subTaskThreadPool.submit(action);
     }
 
+    /**
+     * Runs a list of actions in parallel on the sub-tasks thread pool and returns their results, in the same order.
+     * <p>The calling thread takes part in running the actions, while the pool's threads only help it along when
+     * they are available: this can therefore be safely invoked from a thread of the sub-tasks pool itself, without
+     * blocking it on work that is queued behind it.</p>
+     *
+     * @param actions the actions to run.
+     * @param <T>     the type of the results of the actions.
+     * @return the results of the actions, in the same order as the actions.
+     * @throws ExecutionException   if any of the actions failed.
+     * @throws InterruptedException if the calling thread was interrupted while waiting for the actions to complete.
+     */
+    public <T> List<T> runSubTasks(List<? extends Callable<T>> actions) throws ExecutionException, InterruptedException {
+        int size = actions.size();
+        List<T> results = new ArrayList<>(Collections.nCopies(size, null));
+        var next = new AtomicInteger();
+        var done = new CountDownLatch(size);
+        var failure = new AtomicReference<Throwable>();
+        Runnable worker = () -> {
+            for (int i = next.getAndIncrement(); i < size; i = next.getAndIncrement()) {
+                try {
+                    if (failure.get() == null) {
+                        T result = actions.get(i).call();
+                        synchronized (results) {
+                            results.set(i, result);
+                        }
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        int helpers = Math.min(size, UserPreferences.getInstance().maxSubTasksParallelism.get().intValue()) - 1;
+        for (int i = 0; i < helpers; i++) {
+            submitSubTask(worker);
+        }
+        worker.run();
+        // Actions still in progress at this point are being run by helpers that have already started.
+        done.await();
+        if (failure.get() != null) {
+            throw new ExecutionException(failure.get());
+        }
+        synchronized (results) {
+            return new ArrayList<>(results);
+        }
+    }
+
     private ExecutorService threadPoolFactory(String name, ThreadPoolPolicy policy, int parallelism) {
         ThreadFactory threadFactory = new ThreadFactory() {
             final AtomicInteger threadNum = new AtomicInteger();
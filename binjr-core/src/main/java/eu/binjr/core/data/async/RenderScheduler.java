@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.async;
+
+import eu.binjr.core.preferences.UserPreferences;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Applies updates to the scene graph on the UI thread, spreading them over successive frames so that the time spent
+ * applying them on any given frame stays within a fixed budget.
+ * <p>Pending updates are applied in decreasing order of priority; priorities are evaluated anew on each frame, so
+ * that updates for the charts that are visible or focused at that time are applied first.
+ * At least one update is applied on each frame, regardless of the budget.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class RenderScheduler {
+    private static final Logger logger = LogManager.getLogger(RenderScheduler.class);
+    private static final double EMA_WEIGHT = 0.1;
+    private final UserPreferences userPrefs = UserPreferences.getInstance();
+    private final List<Update> pending = new ArrayList<>();
+    private final ReadOnlyIntegerWrapper pendingUpdates = new ReadOnlyIntegerWrapper(0);
+    private final ReadOnlyDoubleWrapper lastUpdateTimeMs = new ReadOnlyDoubleWrapper(0);
+    private final ReadOnlyDoubleWrapper averageUpdateTimeMs = new ReadOnlyDoubleWrapper(0);
+    private final ReadOnlyDoubleWrapper lastPulseIntervalMs = new ReadOnlyDoubleWrapper(0);
+    private final ReadOnlyDoubleWrapper maxPulseIntervalMs = new ReadOnlyDoubleWrapper(0);
+    private final AnimationTimer timer;
+    private boolean running = false;
+    private long lastPulse = 0;
+    private int burstFrames = 0;
+    private int burstUpdates = 0;
+
+    private RenderScheduler() {
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onPulse(now);
+            }
+        };
+    }
+
+    /**
+     * Returns the singleton instance for {@link RenderScheduler}
+     *
+     * @return the singleton instance for {@link RenderScheduler}
+     */
+    public static RenderScheduler getInstance() {
+        return RenderSchedulerHolder.instance;
+    }
+
+    /**
+     * Schedules an update to be applied on the UI thread.
+     *
+     * @param priority a function returning the priority of the update; updates with a higher priority are applied
+     *                 first.
+     * @param update   the update to apply.
+     */
+    public void submit(IntSupplier priority, Runnable update) {
+        if (!Platform.isFxApplicationThread()) {
+            Platform.runLater(() -> submit(priority, update));
+            return;
+        }
+        pending.add(new Update(priority, update));
+        pendingUpdates.set(pending.size());
+        if (!running) {
+            running = true;
+            lastPulse = 0;
+            burstFrames = 0;
+            burstUpdates = 0;
+            maxPulseIntervalMs.set(0);
+            timer.start();
+        }
+    }
+
+    /**
+     * The number of updates waiting to be applied.
+     *
+     * @return the number of updates waiting to be applied.
+     */
+    public ReadOnlyIntegerProperty pendingUpdatesProperty() {
+        return pendingUpdates.getReadOnlyProperty();
+    }
+
+    /**
+     * The time in ms spent applying updates on the last frame.
+     *
+     * @return the time in ms spent applying updates on the last frame.
+     */
+    public ReadOnlyDoubleProperty lastUpdateTimeMsProperty() {
+        return lastUpdateTimeMs.getReadOnlyProperty();
+    }
+
+    /**
+     * The moving average of the time in ms spent applying updates on each frame.
+     *
+     * @return the moving average of the time in ms spent applying updates on each frame.
+     */
+    public ReadOnlyDoubleProperty averageUpdateTimeMsProperty() {
+        return averageUpdateTimeMs.getReadOnlyProperty();
+    }
+
+    /**
+     * The time in ms elapsed between the last two frames on which updates were applied, which includes the time
+     * needed to lay out and render the scene.
+     *
+     * @return the time in ms elapsed between the last two frames on which updates were applied.
+     */
+    public ReadOnlyDoubleProperty lastPulseIntervalMsProperty() {
+        return lastPulseIntervalMs.getReadOnlyProperty();
+    }
+
+    /**
+     * The longest time in ms elapsed between two successive frames on which updates were applied, since the
+     * scheduler last started applying updates.
+     *
+     * @return the longest time in ms elapsed between two successive frames on which updates were applied.
+     */
+    public ReadOnlyDoubleProperty maxPulseIntervalMsProperty() {
+        return maxPulseIntervalMs.getReadOnlyProperty();
+    }
+
+    private void onPulse(long now) {
+        if (lastPulse != 0) {
+            double interval = (now - lastPulse) / 1_000_000.0;
+            lastPulseIntervalMs.set(interval);
+            maxPulseIntervalMs.set(Math.max(maxPulseIntervalMs.get(), interval));
+        }
+        lastPulse = now;
+        long budget = userPrefs.chartUpdatesFrameBudgetMs.get().longValue() * 1_000_000L;
+        long start = System.nanoTime();
+        int applied = 0;
+        do {
+            var update = takeNext();
+            if (update == null) {
+                break;
+            }
+            try {
+                update.action.run();
+            } catch (Exception e) {
+                logger.error("Error applying update: " + e.getMessage());
+                logger.debug("Stack trace", e);
+            }
+            applied++;
+        } while (System.nanoTime() - start < budget);
+        double elapsed = (System.nanoTime() - start) / 1_000_000.0;
+        lastUpdateTimeMs.set(elapsed);
+        averageUpdateTimeMs.set(averageUpdateTimeMs.get() * (1 - EMA_WEIGHT) + elapsed * EMA_WEIGHT);
+        pendingUpdates.set(pending.size());
+        final int nbApplied = applied;
+        logger.trace(() -> String.format("Applied %d update(s) in %.2f ms, %d pending", nbApplied, elapsed, pending.size()));
+        burstFrames++;
+        burstUpdates += applied;
+        if (pending.isEmpty()) {
+            timer.stop();
+            running = false;
+            logger.debug(() -> String.format("Applied %d update(s) over %d frame(s); longest interval between frames: %.2f ms",
+                    burstUpdates, burstFrames, maxPulseIntervalMs.get()));
+        }
+    }
+
+    private Update takeNext() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        int best = 0;
+        int bestPriority = Integer.MIN_VALUE;
+        for (int i = 0; i < pending.size(); i++) {
+            int p = pending.get(i).priority.getAsInt();
+            // Strictly greater, so that updates of equal priority are applied in the order they were submitted
+            if (p > bestPriority) {
+                bestPriority = p;
+                best = i;
+            }
+        }
+        return pending.remove(best);
+    }
+
+    private static class Update {
+        private final IntSupplier priority;
+        private final Runnable action;
+
+        private Update(IntSupplier priority, Runnable action) {
+            this.priority = priority;
+            this.action = action;
+        }
+    }
+
+    private static class RenderSchedulerHolder {
+        private static final RenderScheduler instance = new RenderScheduler();
+    }
+}
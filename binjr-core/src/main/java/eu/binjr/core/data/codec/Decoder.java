@@ -21,6 +21,7 @@ import eu.binjr.core.data.exceptions.DecodingDataFromAdapterException;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -43,4 +44,19 @@ public interface Decoder {
      * @throws DecodingDataFromAdapterException in the event of an decoding error
      */
     Map<TimeSeriesInfo, TimeSeriesProcessor> decode(InputStream in, List<TimeSeriesInfo> seriesNames) throws IOException, DecodingDataFromAdapterException;
+
+    /**
+     * Decode a fully buffered payload into a map of {@link TimeSeriesProcessor} instances.
+     * <p>The default implementation simply decodes the payload as a stream; implementations may override it to take
+     * advantage of the fact that the whole payload is available upfront.</p>
+     *
+     * @param payload     the payload to decode.
+     * @param seriesNames the name of the series to extract from the payload
+     * @return a map of {@link TimeSeriesProcessor} instances.
+     * @throws IOException                      in the event of an IO error
+     * @throws DecodingDataFromAdapterException in the event of an decoding error
+     */
+    default Map<TimeSeriesInfo, TimeSeriesProcessor> decode(byte[] payload, List<TimeSeriesInfo> seriesNames) throws IOException, DecodingDataFromAdapterException {
+        return decode(new ByteArrayInputStream(payload), seriesNames);
+    }
 }
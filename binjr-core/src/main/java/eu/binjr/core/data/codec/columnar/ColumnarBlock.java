@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import java.util.Arrays;
+
+/**
+ * Describes a block of rows stored in a columnar file; i.e. its location within the file, the range of timestamps
+ * it covers and the minimum and maximum values of each of its columns.
+ *
+ * @author Frederic Thevenet
+ */
+public final class ColumnarBlock {
+    private final int rowCount;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+    private final long offset;
+    private final int timestampsLength;
+    private final int[] columnLengths;
+    private final double[] minValues;
+    private final double[] maxValues;
+
+    ColumnarBlock(int rowCount,
+                  long firstTimestamp,
+                  long lastTimestamp,
+                  long offset,
+                  int timestampsLength,
+                  int[] columnLengths,
+                  double[] minValues,
+                  double[] maxValues) {
+        this.rowCount = rowCount;
+        this.firstTimestamp = firstTimestamp;
+        this.lastTimestamp = lastTimestamp;
+        this.offset = offset;
+        this.timestampsLength = timestampsLength;
+        this.columnLengths = columnLengths;
+        this.minValues = minValues;
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Returns the number of rows in the block.
+     *
+     * @return the number of rows in the block.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the timestamp of the first row in the block.
+     *
+     * @return the timestamp of the first row in the block.
+     */
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+
+    /**
+     * Returns the timestamp of the last row in the block.
+     *
+     * @return the timestamp of the last row in the block.
+     */
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    /**
+     * Returns the smallest non-NaN value in the specified column for this block, or NaN if there is none.
+     *
+     * @param column the index of the column.
+     * @return the smallest non-NaN value in the specified column for this block.
+     */
+    public double getMinValue(int column) {
+        return minValues[column];
+    }
+
+    /**
+     * Returns the largest non-NaN value in the specified column for this block, or NaN if there is none.
+     *
+     * @param column the index of the column.
+     * @return the largest non-NaN value in the specified column for this block.
+     */
+    public double getMaxValue(int column) {
+        return maxValues[column];
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getLength() {
+        return timestampsLength + Arrays.stream(columnLengths).sum();
+    }
+
+    int getTimestampsLength() {
+        return timestampsLength;
+    }
+
+    int getColumnLength(int column) {
+        return columnLengths[column];
+    }
+
+    int getColumnOffset(int column) {
+        int columnOffset = timestampsLength;
+        for (int i = 0; i < column; i++) {
+            columnOffset += columnLengths[i];
+        }
+        return columnOffset;
+    }
+
+    int getColumnCount() {
+        return columnLengths.length;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarBlock{" +
+                "rowCount=" + rowCount +
+                ", firstTimestamp=" + firstTimestamp +
+                ", lastTimestamp=" + lastTimestamp +
+                ", offset=" + offset +
+                '}';
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import eu.binjr.common.io.BitReader;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Provides read access to a file written by a {@link ColumnarFileWriter}.
+ * <p>The content of the file is memory-mapped, and only the blocks and columns that are explicitly requested
+ * are decompressed.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class ColumnarFileReader implements Closeable {
+    private static final Logger logger = LogManager.getLogger(ColumnarFileReader.class);
+    private static final int FOOTER_LENGTH = Long.BYTES + Integer.BYTES;
+    private final Path path;
+    private final FileChannel channel;
+    private final Map<String, String> metadata;
+    private final int columnCount;
+    private final long rowCount;
+    private final List<ColumnarBlock> blocks;
+    private final ByteBuffer mappedData;
+    private final Map<Long, ByteBuffer> mappedBlocks = new ConcurrentHashMap<>();
+
+    private ColumnarFileReader(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < 2 * Integer.BYTES + FOOTER_LENGTH) {
+                throw new IOException("File " + path + " is too short to be a valid columnar file");
+            }
+            ByteBuffer preamble = ByteBuffer.allocate(2 * Integer.BYTES);
+            channel.read(preamble, 0);
+            preamble.flip();
+            if (preamble.getInt() != ColumnarFileWriter.MAGIC) {
+                throw new IOException("File " + path + " is not a valid columnar file");
+            }
+            int version = preamble.getInt();
+            if (version != ColumnarFileWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported columnar file format version: " + version);
+            }
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_LENGTH);
+            channel.read(footer, size - FOOTER_LENGTH);
+            footer.flip();
+            long indexOffset = footer.getLong();
+            if (footer.getInt() != ColumnarFileWriter.MAGIC || indexOffset < 0 || indexOffset > size - FOOTER_LENGTH) {
+                throw new IOException("File " + path + " is truncated or corrupted");
+            }
+            var in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(indexOffset))));
+            int metadataCount = in.readInt();
+            var meta = new LinkedHashMap<String, String>();
+            for (int i = 0; i < metadataCount; i++) {
+                meta.put(in.readUTF(), in.readUTF());
+            }
+            this.metadata = Collections.unmodifiableMap(meta);
+            this.columnCount = in.readInt();
+            this.rowCount = in.readLong();
+            int blockCount = in.readInt();
+            var blockList = new ArrayList<ColumnarBlock>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                int blockRows = in.readInt();
+                long first = in.readLong();
+                long last = in.readLong();
+                long offset = in.readLong();
+                int timestampsLength = in.readInt();
+                int[] columnLengths = new int[columnCount];
+                double[] minValues = new double[columnCount];
+                double[] maxValues = new double[columnCount];
+                for (int c = 0; c < columnCount; c++) {
+                    columnLengths[c] = in.readInt();
+                    minValues[c] = in.readDouble();
+                    maxValues[c] = in.readDouble();
+                }
+                blockList.add(new ColumnarBlock(blockRows, first, last, offset, timestampsLength, columnLengths, minValues, maxValues));
+            }
+            this.blocks = Collections.unmodifiableList(blockList);
+            // Map the whole data section at once when it fits in a single buffer, block by block otherwise.
+            this.mappedData = indexOffset <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, indexOffset) : null;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the columnar file at the specified location.
+     *
+     * @param path the location of the file to open.
+     * @return a new instance of {@link ColumnarFileReader}
+     * @throws IOException if an I/O error occurs or if the file is not a valid columnar file.
+     */
+    public static ColumnarFileReader open(Path path) throws IOException {
+        return new ColumnarFileReader(path);
+    }
+
+    /**
+     * Returns the key/value pairs stored alongside the data.
+     *
+     * @return the key/value pairs stored alongside the data.
+     */
+    public Map<String, String> getMetadata() {
+        return metadata;
+    }
+
+    /**
+     * Returns the number of value columns in each row.
+     *
+     * @return the number of value columns in each row.
+     */
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Returns the total number of rows in the file.
+     *
+     * @return the total number of rows in the file.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns true if the file contains no rows, false otherwise.
+     *
+     * @return true if the file contains no rows, false otherwise.
+     */
+    public boolean isEmpty() {
+        return blocks.isEmpty();
+    }
+
+    /**
+     * Returns the timestamp of the first row in the file.
+     *
+     * @return the timestamp of the first row in the file.
+     */
+    public long getFirstTimestamp() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Columnar file " + path + " is empty");
+        }
+        return blocks.get(0).getFirstTimestamp();
+    }
+
+    /**
+     * Returns the timestamp of the last row in the file.
+     *
+     * @return the timestamp of the last row in the file.
+     */
+    public long getLastTimestamp() {
+        if (isEmpty()) {
+            throw new IllegalStateException("Columnar file " + path + " is empty");
+        }
+        return blocks.get(blocks.size() - 1).getLastTimestamp();
+    }
+
+    /**
+     * Returns all the blocks in the file, in timestamp order.
+     *
+     * @return all the blocks in the file, in timestamp order.
+     */
+    public List<ColumnarBlock> getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Returns the blocks that hold rows within the specified time interval, as well as those that hold the closest
+     * rows on either side of it.
+     *
+     * @param from the start of the time interval.
+     * @param to   the end of the time interval.
+     * @return the blocks that hold rows within the specified time interval.
+     */
+    public List<ColumnarBlock> getBlocks(long from, long to) {
+        if (blocks.isEmpty()) {
+            return blocks;
+        }
+        int start = 0;
+        int lo = 0, hi = blocks.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blocks.get(mid).getFirstTimestamp() <= from) {
+                start = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        int end = blocks.size() - 1;
+        lo = start;
+        hi = blocks.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blocks.get(mid).getLastTimestamp() >= to) {
+                end = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return blocks.subList(start, end + 1);
+    }
+
+    /**
+     * Decompresses the timestamps of all the rows in the specified block.
+     *
+     * @param block the block to read.
+     * @return the timestamps of all the rows in the specified block.
+     */
+    public long[] readTimestamps(ColumnarBlock block) {
+        var decompressor = new TimestampDecompressor(new BitReader(getBlockBuffer(block), 0));
+        long[] timestamps = new long[block.getRowCount()];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = decompressor.next();
+        }
+        return timestamps;
+    }
+
+    /**
+     * Decompresses the values of the specified column for all the rows in the specified block.
+     *
+     * @param block  the block to read.
+     * @param column the index of the column to read.
+     * @return the values of the specified column for all the rows in the specified block.
+     */
+    public double[] readColumn(ColumnarBlock block, int column) {
+        var decompressor = new XorDecompressor(new BitReader(getBlockBuffer(block), block.getColumnOffset(column)));
+        double[] values = new double[block.getRowCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = decompressor.next();
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mappedBlocks.clear();
+        channel.close();
+        logger.trace(() -> "Closed columnar file " + path);
+    }
+
+    private ByteBuffer getBlockBuffer(ColumnarBlock block) {
+        if (mappedData != null) {
+            ByteBuffer buffer = mappedData.duplicate();
+            buffer.position((int) block.getOffset());
+            buffer.limit((int) block.getOffset() + block.getLength());
+            return buffer.slice();
+        }
+        return mappedBlocks.computeIfAbsent(block.getOffset(), offset -> {
+            try {
+                return channel.map(FileChannel.MapMode.READ_ONLY, offset, block.getLength());
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to map block at offset " + offset + " in " + path, e);
+            }
+        });
+    }
+}
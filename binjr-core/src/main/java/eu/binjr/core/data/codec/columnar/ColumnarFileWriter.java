@@ -0,0 +1,235 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import eu.binjr.common.io.BitWriter;
+import eu.binjr.common.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes rows made of a timestamp and a fixed number of double values into a compact, block-oriented columnar file.
+ * <p>Within each block, timestamps are delta-of-delta encoded and each column is XOR compressed, while the
+ * minimum and maximum value of each column is recorded in the block index.</p>
+ * <p>Rows must be appended in increasing timestamp order. The file is written to a temporary location and
+ * only moved to its final destination when {@link #commit()} is invoked, so that readers never observe a
+ * partially written file.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class ColumnarFileWriter implements Closeable {
+    static final int MAGIC = 0x424A5243;
+    static final int FORMAT_VERSION = 1;
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    private static final Logger logger = LogManager.getLogger(ColumnarFileWriter.class);
+    private final Path target;
+    private final Path tempFile;
+    private final DataOutputStream out;
+    private final int columnCount;
+    private final int blockSize;
+    private final Map<String, String> metadata;
+    private final long[] timestamps;
+    private final double[][] values;
+    private final List<ColumnarBlock> blocks = new ArrayList<>();
+    private final BitWriter bitWriter = new BitWriter(64 * 1024);
+    private int rowsInBlock = 0;
+    private long rowCount = 0;
+    private long position = 0;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private boolean committed = false;
+
+    /**
+     * Initializes a new instance of the {@link ColumnarFileWriter} class, with the default block size.
+     *
+     * @param target      the path of the file to write.
+     * @param columnCount the number of value columns in each row.
+     * @param metadata    a map of key/value pairs to store alongside the data.
+     * @throws IOException if an I/O error occurs.
+     */
+    public ColumnarFileWriter(Path target, int columnCount, Map<String, String> metadata) throws IOException {
+        this(target, columnCount, metadata, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Initializes a new instance of the {@link ColumnarFileWriter} class.
+     *
+     * @param target      the path of the file to write.
+     * @param columnCount the number of value columns in each row.
+     * @param metadata    a map of key/value pairs to store alongside the data.
+     * @param blockSize   the maximum number of rows in a single block.
+     * @throws IOException if an I/O error occurs.
+     */
+    public ColumnarFileWriter(Path target, int columnCount, Map<String, String> metadata, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be strictly positive");
+        }
+        this.target = target;
+        this.columnCount = columnCount;
+        this.blockSize = blockSize;
+        this.metadata = new LinkedHashMap<>(metadata);
+        this.timestamps = new long[blockSize];
+        this.values = new double[columnCount][blockSize];
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        this.tempFile = IOUtils.createSiblingTempFile(target);
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        position = out.size();
+    }
+
+    /**
+     * Appends a row to the file.
+     *
+     * @param timestamp the timestamp for the row; must be greater than or equal to the timestamp of the previous row.
+     * @param row       the values for the row; missing trailing values are stored as NaN.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void append(long timestamp, double... row) throws IOException {
+        if (committed) {
+            throw new IllegalStateException("Cannot append rows to a committed columnar file");
+        }
+        if (timestamp < lastTimestamp) {
+            throw new IllegalArgumentException("Rows must be appended in increasing timestamp order");
+        }
+        lastTimestamp = timestamp;
+        timestamps[rowsInBlock] = timestamp;
+        for (int i = 0; i < columnCount; i++) {
+            values[i][rowsInBlock] = i < row.length ? row[i] : Double.NaN;
+        }
+        rowsInBlock++;
+        rowCount++;
+        if (rowsInBlock == blockSize) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Flushes pending rows, writes the block index and moves the file to its final destination.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void commit() throws IOException {
+        if (committed) {
+            return;
+        }
+        flushBlock();
+        long indexOffset = position;
+        out.writeInt(metadata.size());
+        for (var entry : metadata.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+        out.writeInt(columnCount);
+        out.writeLong(rowCount);
+        out.writeInt(blocks.size());
+        for (var block : blocks) {
+            out.writeInt(block.getRowCount());
+            out.writeLong(block.getFirstTimestamp());
+            out.writeLong(block.getLastTimestamp());
+            out.writeLong(block.getOffset());
+            out.writeInt(block.getTimestampsLength());
+            for (int i = 0; i < columnCount; i++) {
+                out.writeInt(block.getColumnLength(i));
+                out.writeDouble(block.getMinValue(i));
+                out.writeDouble(block.getMaxValue(i));
+            }
+        }
+        out.writeLong(indexOffset);
+        out.writeInt(MAGIC);
+        out.close();
+        IOUtils.replaceAtomically(tempFile, target);
+        committed = true;
+        logger.trace(() -> String.format("Wrote %d rows in %d blocks to %s", rowCount, blocks.size(), target));
+    }
+
+    /**
+     * Closes the writer; if {@link #commit()} was not invoked, the partially written file is discarded.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            try {
+                out.close();
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (rowsInBlock == 0) {
+            return;
+        }
+        long blockOffset = position;
+        bitWriter.reset();
+        var timestampCompressor = new TimestampCompressor(bitWriter);
+        for (int i = 0; i < rowsInBlock; i++) {
+            timestampCompressor.add(timestamps[i]);
+        }
+        int timestampsLength = writeBits();
+        int[] columnLengths = new int[columnCount];
+        double[] minValues = new double[columnCount];
+        double[] maxValues = new double[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+            bitWriter.reset();
+            var valueCompressor = new XorCompressor(bitWriter);
+            double min = Double.NaN;
+            double max = Double.NaN;
+            for (int i = 0; i < rowsInBlock; i++) {
+                double v = values[c][i];
+                valueCompressor.add(v);
+                if (!Double.isNaN(v)) {
+                    min = Double.isNaN(min) ? v : Math.min(min, v);
+                    max = Double.isNaN(max) ? v : Math.max(max, v);
+                }
+            }
+            columnLengths[c] = writeBits();
+            minValues[c] = min;
+            maxValues[c] = max;
+        }
+        blocks.add(new ColumnarBlock(rowsInBlock,
+                timestamps[0],
+                timestamps[rowsInBlock - 1],
+                blockOffset,
+                timestampsLength,
+                columnLengths,
+                minValues,
+                maxValues));
+        rowsInBlock = 0;
+    }
+
+    private int writeBits() throws IOException {
+        byte[] bytes = bitWriter.toByteArray();
+        out.write(bytes);
+        position += bytes.length;
+        return bytes.length;
+    }
+}
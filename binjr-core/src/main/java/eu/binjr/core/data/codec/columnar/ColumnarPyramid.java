@@ -0,0 +1,317 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.codec.columnar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A multi-resolution summary of a column from a {@link ColumnarFileReader}, made of successive levels in which each
+ * bucket aggregates twice as many rows as in the previous one.
+ * <p>Each bucket holds the minimum, maximum and average of the values it aggregates, along with the timestamps of
+ * its first and last rows and of the rows where its minimum and maximum were found, so that a series can be displayed over any time interval by reading a number of buckets
+ * proportional to the desired number of samples rather than to the number of rows.</p>
+ * <p>Missing values (NaN) are ignored when aggregating; a bucket that only holds missing values has NaN for
+ * its minimum, maximum and average.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public final class ColumnarPyramid {
+    /**
+     * The number of rows aggregated by each bucket in the finest level, as a power of two.
+     */
+    public static final int BASE_LEVEL = 4;
+    private static final int MIN_BUCKETS = 64;
+    private final List<Level> levels;
+
+    private ColumnarPyramid(List<Level> levels) {
+        this.levels = Collections.unmodifiableList(levels);
+    }
+
+    /**
+     * Builds the pyramid for a column of the specified file.
+     *
+     * @param reader the reader for the columnar file.
+     * @param column the index of the column.
+     * @return the pyramid for the specified column.
+     */
+    public static ColumnarPyramid build(ColumnarFileReader reader, int column) {
+        int rowsPerBucket = 1 << BASE_LEVEL;
+        var base = new Level(1 << BASE_LEVEL, (int) (reader.getRowCount() / rowsPerBucket) + 1);
+        int n = 0;
+        for (var block : reader.getBlocks()) {
+            long[] timestamps = reader.readTimestamps(block);
+            double[] values = reader.readColumn(block, column);
+            for (int i = 0; i < timestamps.length; i++) {
+                if (n == 0) {
+                    base.open(timestamps[i]);
+                }
+                base.accumulate(timestamps[i], values[i]);
+                if (++n == rowsPerBucket) {
+                    n = 0;
+                }
+            }
+        }
+        var levels = new ArrayList<Level>();
+        levels.add(base);
+        Level current = base;
+        while (current.size > MIN_BUCKETS) {
+            current = current.coarsen();
+            levels.add(current);
+        }
+        return new ColumnarPyramid(levels);
+    }
+
+    /**
+     * Returns all levels in the pyramid, from the finest to the coarsest.
+     *
+     * @return all levels in the pyramid, from the finest to the coarsest.
+     */
+    public List<Level> getLevels() {
+        return levels;
+    }
+
+    /**
+     * Returns the coarsest level that holds at least the specified number of buckets over the specified time
+     * interval, or null if even the finest level is too coarse, in which case rows should be read directly.
+     *
+     * @param from       the start of the time interval.
+     * @param to         the end of the time interval.
+     * @param minBuckets the minimum number of buckets wanted over the time interval.
+     * @return the coarsest level that holds at least the specified number of buckets over the specified time
+     * interval, or null if there is none.
+     */
+    public Level getLevel(long from, long to, int minBuckets) {
+        // Count the buckets actually overlapping the interval rather than relying on an average bucket duration,
+        // since the sampling rate may vary a lot within a file.
+        Level selected = null;
+        for (var level : levels) {
+            if (level.size() > 0 && level.getLastIndex(to) - level.getFirstIndex(from) + 1 >= minBuckets) {
+                selected = level;
+            } else {
+                break;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * A level of the pyramid.
+     */
+    public static final class Level {
+        private final int rowsPerBucket;
+        private long[] firstTimestamps;
+        private long[] lastTimestamps;
+        private long[] minTimestamps;
+        private long[] maxTimestamps;
+        private double[] min;
+        private double[] max;
+        private double[] sum;
+        private int[] count;
+        private int size = 0;
+
+        private Level(int rowsPerBucket, int capacity) {
+            this.rowsPerBucket = rowsPerBucket;
+            this.firstTimestamps = new long[Math.max(1, capacity)];
+            this.lastTimestamps = new long[firstTimestamps.length];
+            this.minTimestamps = new long[firstTimestamps.length];
+            this.maxTimestamps = new long[firstTimestamps.length];
+            this.min = new double[firstTimestamps.length];
+            this.max = new double[firstTimestamps.length];
+            this.sum = new double[firstTimestamps.length];
+            this.count = new int[firstTimestamps.length];
+        }
+
+        private void open(long timestamp) {
+            if (size == firstTimestamps.length) {
+                int capacity = size * 2;
+                firstTimestamps = Arrays.copyOf(firstTimestamps, capacity);
+                lastTimestamps = Arrays.copyOf(lastTimestamps, capacity);
+                minTimestamps = Arrays.copyOf(minTimestamps, capacity);
+                maxTimestamps = Arrays.copyOf(maxTimestamps, capacity);
+                min = Arrays.copyOf(min, capacity);
+                max = Arrays.copyOf(max, capacity);
+                sum = Arrays.copyOf(sum, capacity);
+                count = Arrays.copyOf(count, capacity);
+            }
+            firstTimestamps[size] = timestamp;
+            lastTimestamps[size] = timestamp;
+            minTimestamps[size] = timestamp;
+            maxTimestamps[size] = timestamp;
+            min[size] = Double.NaN;
+            max[size] = Double.NaN;
+            sum[size] = 0;
+            count[size] = 0;
+            size++;
+        }
+
+        private void accumulate(long timestamp, double value) {
+            int i = size - 1;
+            lastTimestamps[i] = timestamp;
+            if (!Double.isNaN(value)) {
+                if (count[i] == 0 || value < min[i]) {
+                    min[i] = value;
+                    minTimestamps[i] = timestamp;
+                }
+                if (count[i] == 0 || value > max[i]) {
+                    max[i] = value;
+                    maxTimestamps[i] = timestamp;
+                }
+                sum[i] += value;
+                count[i]++;
+            }
+        }
+
+        private Level coarsen() {
+            var next = new Level(rowsPerBucket * 2, (size + 1) / 2);
+            for (int i = 0; i < size; i += 2) {
+                next.open(firstTimestamps[i]);
+                for (int j = i; j < Math.min(i + 2, size); j++) {
+                    int k = next.size - 1;
+                    next.lastTimestamps[k] = lastTimestamps[j];
+                    if (count[j] > 0) {
+                        if (next.count[k] == 0 || min[j] < next.min[k]) {
+                            next.min[k] = min[j];
+                            next.minTimestamps[k] = minTimestamps[j];
+                        }
+                        if (next.count[k] == 0 || max[j] > next.max[k]) {
+                            next.max[k] = max[j];
+                            next.maxTimestamps[k] = maxTimestamps[j];
+                        }
+                        next.sum[k] += sum[j];
+                        next.count[k] += count[j];
+                    }
+                }
+            }
+            return next;
+        }
+
+        /**
+         * Returns the number of rows aggregated by each bucket.
+         *
+         * @return the number of rows aggregated by each bucket.
+         */
+        public int getRowsPerBucket() {
+            return rowsPerBucket;
+        }
+
+        /**
+         * Returns the number of buckets in the level.
+         *
+         * @return the number of buckets in the level.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the index of the first bucket that overlaps the specified time interval, or of the closest bucket
+         * before it.
+         *
+         * @param from the start of the time interval.
+         * @return the index of the first bucket to read for the specified time interval.
+         */
+        public int getFirstIndex(long from) {
+            int pos = Arrays.binarySearch(firstTimestamps, 0, size, from);
+            return pos >= 0 ? pos : Math.max(0, -pos - 2);
+        }
+
+        /**
+         * Returns the index of the last bucket that overlaps the specified time interval, or of the closest bucket
+         * after it.
+         *
+         * @param to the end of the time interval.
+         * @return the index of the last bucket to read for the specified time interval.
+         */
+        public int getLastIndex(long to) {
+            int pos = Arrays.binarySearch(lastTimestamps, 0, size, to);
+            return pos >= 0 ? pos : Math.min(size - 1, -pos - 1);
+        }
+
+        /**
+         * Returns the timestamp of the first row in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the timestamp of the first row in the specified bucket.
+         */
+        public long getFirstTimestamp(int index) {
+            return firstTimestamps[index];
+        }
+
+        /**
+         * Returns the timestamp of the last row in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the timestamp of the last row in the specified bucket.
+         */
+        public long getLastTimestamp(int index) {
+            return lastTimestamps[index];
+        }
+
+        /**
+         * Returns the timestamp of the row holding the minimum value in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the timestamp of the row holding the minimum value in the specified bucket.
+         */
+        public long getMinTimestamp(int index) {
+            return minTimestamps[index];
+        }
+
+        /**
+         * Returns the timestamp of the row holding the maximum value in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the timestamp of the row holding the maximum value in the specified bucket.
+         */
+        public long getMaxTimestamp(int index) {
+            return maxTimestamps[index];
+        }
+
+        /**
+         * Returns the minimum value in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the minimum value in the specified bucket.
+         */
+        public double getMin(int index) {
+            return min[index];
+        }
+
+        /**
+         * Returns the maximum value in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the maximum value in the specified bucket.
+         */
+        public double getMax(int index) {
+            return max[index];
+        }
+
+        /**
+         * Returns the average value in the specified bucket.
+         *
+         * @param index the index of the bucket.
+         * @return the average value in the specified bucket.
+         */
+        public double getAverage(int index) {
+            return count[index] == 0 ? Double.NaN : sum[index] / count[index];
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import eu.binjr.common.io.BitWriter;
+
+/**
+ * Compresses a sequence of monotonous timestamps using delta-of-delta encoding, as described in
+ * "Gorilla: A Fast, Scalable, In-Memory Time Series Database" (Pelkonen et al.).
+ * <p>Regularly spaced timestamps are encoded using a single bit each.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public class TimestampCompressor {
+    private final BitWriter out;
+    private long previousTimestamp;
+    private long previousDelta = 0;
+    private boolean first = true;
+
+    /**
+     * Initializes a new instance of the {@link TimestampCompressor} class.
+     *
+     * @param out the {@link BitWriter} to write compressed timestamps to.
+     */
+    public TimestampCompressor(BitWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends a timestamp to the compressed stream.
+     *
+     * @param timestamp the timestamp to append.
+     */
+    public void add(long timestamp) {
+        if (first) {
+            out.writeBits(timestamp, 64);
+            first = false;
+        } else {
+            long delta = timestamp - previousTimestamp;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.writeBit(false);
+            } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta, 7);
+            } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta, 9);
+            } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(deltaOfDelta, 64);
+            }
+            previousDelta = delta;
+        }
+        previousTimestamp = timestamp;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import eu.binjr.common.io.BitReader;
+
+/**
+ * Decompresses a sequence of timestamps encoded by a {@link TimestampCompressor}.
+ *
+ * @author Frederic Thevenet
+ */
+public class TimestampDecompressor {
+    private final BitReader in;
+    private long previousTimestamp;
+    private long previousDelta = 0;
+    private boolean first = true;
+
+    /**
+     * Initializes a new instance of the {@link TimestampDecompressor} class.
+     *
+     * @param in the {@link BitReader} to read compressed timestamps from.
+     */
+    public TimestampDecompressor(BitReader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the next timestamp in the stream.
+     *
+     * @return the next timestamp in the stream.
+     */
+    public long next() {
+        if (first) {
+            previousTimestamp = in.readBits(64);
+            first = false;
+            return previousTimestamp;
+        }
+        long deltaOfDelta;
+        if (!in.readBit()) {
+            deltaOfDelta = 0;
+        } else if (!in.readBit()) {
+            deltaOfDelta = in.readSignedBits(7);
+        } else if (!in.readBit()) {
+            deltaOfDelta = in.readSignedBits(9);
+        } else if (!in.readBit()) {
+            deltaOfDelta = in.readSignedBits(12);
+        } else {
+            deltaOfDelta = in.readBits(64);
+        }
+        previousDelta += deltaOfDelta;
+        previousTimestamp += previousDelta;
+        return previousTimestamp;
+    }
+}
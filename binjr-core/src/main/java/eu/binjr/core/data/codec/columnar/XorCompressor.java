@@ -0,0 +1,81 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import eu.binjr.common.io.BitWriter;
+
+/**
+ * Compresses a sequence of double precision values by XOR-ing each value with the previous one and only
+ * storing the meaningful bits, as described in "Gorilla: A Fast, Scalable, In-Memory Time Series Database"
+ * (Pelkonen et al.).
+ *
+ * @author Frederic Thevenet
+ */
+public class XorCompressor {
+    private final BitWriter out;
+    private long previousBits;
+    private int previousLeadingZeros = Integer.MAX_VALUE;
+    private int previousTrailingZeros = 0;
+    private boolean first = true;
+
+    /**
+     * Initializes a new instance of the {@link XorCompressor} class.
+     *
+     * @param out the {@link BitWriter} to write compressed values to.
+     */
+    public XorCompressor(BitWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends a value to the compressed stream.
+     *
+     * @param value the value to append.
+     */
+    public void add(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        if (first) {
+            out.writeBits(bits, 64);
+            first = false;
+        } else {
+            long xor = bits ^ previousBits;
+            if (xor == 0) {
+                out.writeBit(false);
+            } else {
+                out.writeBit(true);
+                int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailingZeros = Long.numberOfTrailingZeros(xor);
+                if (leadingZeros >= previousLeadingZeros && trailingZeros >= previousTrailingZeros) {
+                    // Meaningful bits fit within the previous window: reuse it
+                    out.writeBit(false);
+                    out.writeBits(xor >>> previousTrailingZeros, 64 - previousLeadingZeros - previousTrailingZeros);
+                } else {
+                    int significantBits = 64 - leadingZeros - trailingZeros;
+                    out.writeBit(true);
+                    out.writeBits(leadingZeros, 5);
+                    // 64 significant bits is stored as 0, since 1 is the smallest possible length.
+                    out.writeBits(significantBits & 0x3F, 6);
+                    out.writeBits(xor >>> trailingZeros, significantBits);
+                    previousLeadingZeros = leadingZeros;
+                    previousTrailingZeros = trailingZeros;
+                }
+            }
+        }
+        previousBits = bits;
+    }
+}
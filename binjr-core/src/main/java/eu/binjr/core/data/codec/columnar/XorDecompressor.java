@@ -0,0 +1,66 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+
+package eu.binjr.core.data.codec.columnar;
+
+import eu.binjr.common.io.BitReader;
+
+/**
+ * Decompresses a sequence of double precision values encoded by a {@link XorCompressor}.
+ *
+ * @author Frederic Thevenet
+ */
+public class XorDecompressor {
+    private final BitReader in;
+    private long previousBits;
+    private int previousLeadingZeros = 0;
+    private int previousTrailingZeros = 0;
+    private boolean first = true;
+
+    /**
+     * Initializes a new instance of the {@link XorDecompressor} class.
+     *
+     * @param in the {@link BitReader} to read compressed values from.
+     */
+    public XorDecompressor(BitReader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the next value in the stream.
+     *
+     * @return the next value in the stream.
+     */
+    public double next() {
+        if (first) {
+            previousBits = in.readBits(64);
+            first = false;
+        } else if (in.readBit()) {
+            if (in.readBit()) {
+                previousLeadingZeros = (int) in.readBits(5);
+                int significantBits = (int) in.readBits(6);
+                if (significantBits == 0) {
+                    significantBits = 64;
+                }
+                previousTrailingZeros = 64 - previousLeadingZeros - significantBits;
+            }
+            long xor = in.readBits(64 - previousLeadingZeros - previousTrailingZeros) << previousTrailingZeros;
+            previousBits ^= xor;
+        }
+        return Double.longBitsToDouble(previousBits);
+    }
+}
@@ -18,11 +18,13 @@ package eu.binjr.core.data.codec.csv;
 
 import eu.binjr.common.function.CheckedFunction;
 import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.codec.Decoder;
 import eu.binjr.core.data.exceptions.DecodingDataFromAdapterException;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessor;
 import eu.binjr.core.data.timeseries.TimeSeriesProcessorFactory;
 import eu.binjr.core.data.workspace.TimeSeriesInfo;
+import eu.binjr.core.preferences.UserPreferences;
 import javafx.scene.chart.XYChart;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVRecord;
@@ -30,14 +32,18 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
@@ -53,6 +59,7 @@ public class CsvDecoder implements Decoder {
     private final CheckedFunction<String, ZonedDateTime, DecodingDataFromAdapterException> dateParser;
     private final TimeSeriesProcessorFactory timeSeriesFactory;
     private static final Logger logger = LogManager.getLogger(CsvDecoder.class);
+    private static final int MIN_CHUNK_SIZE = 1024 * 1024;
 
     /**
      * Initializes a new instance of the {@link CsvDecoder} class using the default number parsing function.
@@ -144,6 +151,91 @@ public class CsvDecoder implements Decoder {
         }
     }
 
+    /**
+     * Decodes a fully buffered CSV payload.
+     * <p>Large payloads are split into line-aligned chunks that are decoded in parallel by the calling thread and the
+     * sub-tasks thread pool into per-chunk buffers, which are then concatenated into the resulting
+     * {@link TimeSeriesProcessor} instances.
+     * This assumes that records do not span several lines and that the encoding represents line feeds as single
+     * bytes; if that is not the case, the payload is decoded sequentially.</p>
+     *
+     * @param payload    the CSV payload to decode.
+     * @param seriesInfo the series to extract from the payload.
+     * @return a map of {@link TimeSeriesProcessor} instances.
+     * @throws IOException                      in the event of an I/O error.
+     * @throws DecodingDataFromAdapterException if an error occurred while decoding the CSV payload.
+     */
+    @Override
+    public Map<TimeSeriesInfo, TimeSeriesProcessor> decode(byte[] payload, List<TimeSeriesInfo> seriesInfo) throws IOException, DecodingDataFromAdapterException {
+        int parallelism = UserPreferences.getInstance().maxSubTasksParallelism.get().intValue();
+        if (parallelism < 2 || payload.length < 2 * MIN_CHUNK_SIZE || !Arrays.equals("\n".getBytes(encoding), new byte[]{'\n'})) {
+            return decode(new ByteArrayInputStream(payload), seriesInfo);
+        }
+        try (Profiler ignored = Profiler.start("Building time series from csv data in parallel", logger::trace)) {
+            int headerEnd = nextLineStart(payload, 0);
+            List<String> headers;
+            try (var reader = new InputStreamReader(new ByteArrayInputStream(payload, 0, headerEnd), encoding)) {
+                var it = CSVFormat.DEFAULT.withDelimiter(delimiter).parse(reader).iterator();
+                if (!it.hasNext()) {
+                    return new HashMap<>();
+                }
+                headers = new ArrayList<>();
+                it.next().forEach(headers::add);
+            }
+            int[] columns = new int[seriesInfo.size()];
+            for (int i = 0; i < columns.length; i++) {
+                String label = seriesInfo.get(i).getBinding().getLabel();
+                columns[i] = headers.indexOf(label);
+                if (columns[i] < 0) {
+                    throw new DecodingDataFromAdapterException("Mapping for " + label + " not found, expected one of " + headers);
+                }
+            }
+            // Split the payload into line aligned chunks; use more chunks than threads to even out the load.
+            int nbChunks = (int) Math.max(1, Math.min(parallelism * 4L, (payload.length - headerEnd) / MIN_CHUNK_SIZE));
+            int chunkSize = (payload.length - headerEnd) / nbChunks;
+            List<Callable<ChunkBuffer>> chunks = new ArrayList<>(nbChunks);
+            int start = headerEnd;
+            while (start < payload.length) {
+                int chunkStart = start;
+                int chunkEnd = nextLineStart(payload, Math.min(payload.length, start + chunkSize));
+                chunks.add(() -> decodeChunk(payload, chunkStart, chunkEnd, columns));
+                start = chunkEnd;
+            }
+            // This is typically invoked from a sub-task itself, so the calling thread takes part in decoding the
+            // chunks rather than blocking while waiting for other workers of the same pool.
+            List<ChunkBuffer> buffers = AsyncTaskManager.getInstance().runSubTasks(chunks);
+            int nbSamples = 0;
+            for (var buffer : buffers) {
+                nbSamples += buffer.size;
+            }
+            Map<TimeSeriesInfo, TimeSeriesProcessor> series = new HashMap<>();
+            for (int i = 0; i < columns.length; i++) {
+                List<XYChart.Data<ZonedDateTime, Double>> samples = new ArrayList<>(nbSamples);
+                for (var buffer : buffers) {
+                    for (int j = 0; j < buffer.size; j++) {
+                        samples.add(new XYChart.Data<>(buffer.timestamps[j], buffer.values[i][j]));
+                    }
+                }
+                TimeSeriesProcessor proc = series.computeIfAbsent(seriesInfo.get(i), k -> timeSeriesFactory.create());
+                proc.setData(samples);
+            }
+            final int total = nbSamples;
+            logger.trace(() -> String.format("Built %d series with %d samples each from %d chunks", seriesInfo.size(), total, buffers.size()));
+            return series;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DecodingDataFromAdapterException) {
+                throw (DecodingDataFromAdapterException) e.getCause();
+            }
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new DecodingDataFromAdapterException("Error decoding csv payload", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DecodingDataFromAdapterException("Interrupted while decoding csv payload", e);
+        }
+    }
+
     /**
      * Decodes data from the provided stream and invoke the provided {@link Consumer} for each decoded record.
      *
@@ -154,13 +246,29 @@ public class CsvDecoder implements Decoder {
      * @throws DecodingDataFromAdapterException if an error occurred while decoding the CSV file.
      */
     public void decode(InputStream in, List<String> headers, Consumer<DataSample> mapToResult) throws IOException, DecodingDataFromAdapterException {
+        decode(in, headers, true, mapToResult);
+    }
+
+    /**
+     * Decodes data from the provided stream and invoke the provided {@link Consumer} for each decoded record.
+     *
+     * @param in              the {@link InputStream} for the CSV file
+     * @param headers         a list of the headers to keep from decoded records
+     * @param hasHeaderRecord true if the first record in the stream is the columns header, false if the stream only
+     *                        contains data records (e.g. when decoding lines appended to a file).
+     * @param mapToResult     the function to invoke for reach decoded record
+     * @throws IOException                      in the event of an I/O error.
+     * @throws DecodingDataFromAdapterException if an error occurred while decoding the CSV file.
+     */
+    public void decode(InputStream in, List<String> headers, boolean hasHeaderRecord, Consumer<DataSample> mapToResult) throws IOException, DecodingDataFromAdapterException {
         try (Profiler ignored = Profiler.start("Building time series from csv data", logger::trace)) {
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, encoding))) {
                 CSVFormat csvFormat = CSVFormat.DEFAULT
                         .withAllowMissingColumnNames(false)
-                        .withFirstRecordAsHeader()
-                        .withSkipHeaderRecord()
                         .withDelimiter(delimiter);
+                if (hasHeaderRecord) {
+                    csvFormat = csvFormat.withFirstRecordAsHeader().withSkipHeaderRecord();
+                }
                 Iterable<CSVRecord> records = csvFormat.parse(reader);
                 for (CSVRecord csvRecord : records) {
                     ZonedDateTime timeStamp = dateParser.apply(csvRecord.get(0));
@@ -174,6 +282,56 @@ public class CsvDecoder implements Decoder {
         }
     }
 
+    private ChunkBuffer decodeChunk(byte[] payload, int from, int to, int[] columns) throws IOException, DecodingDataFromAdapterException {
+        var buffer = new ChunkBuffer(columns.length, (to - from) / 32);
+        try (var reader = new InputStreamReader(new ByteArrayInputStream(payload, from, to - from), encoding)) {
+            for (CSVRecord csvRecord : CSVFormat.DEFAULT.withDelimiter(delimiter).parse(reader)) {
+                int row = buffer.add(dateParser.apply(csvRecord.get(0)));
+                for (int i = 0; i < columns.length; i++) {
+                    Double value = numberParser.apply(csvRecord.get(columns[i]));
+                    buffer.values[i][row] = value != null ? value : Double.NaN;
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private static int nextLineStart(byte[] payload, int from) {
+        for (int i = from; i < payload.length; i++) {
+            if (payload[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return payload.length;
+    }
+
+    /**
+     * Holds the samples decoded from a chunk of a CSV payload, with values stored column by column.
+     */
+    private static class ChunkBuffer {
+        private ZonedDateTime[] timestamps;
+        private final double[][] values;
+        private int size = 0;
+
+        private ChunkBuffer(int nbColumns, int initialCapacity) {
+            int capacity = Math.max(16, initialCapacity);
+            this.timestamps = new ZonedDateTime[capacity];
+            this.values = new double[nbColumns][capacity];
+        }
+
+        private int add(ZonedDateTime timestamp) {
+            if (size == timestamps.length) {
+                int capacity = timestamps.length * 2;
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = Arrays.copyOf(values[i], capacity);
+                }
+            }
+            timestamps[size] = timestamp;
+            return size++;
+        }
+    }
+
     /**
      * Returns the encoding for the CSV file.
      *
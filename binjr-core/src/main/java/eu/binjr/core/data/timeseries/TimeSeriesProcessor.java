@@ -28,6 +28,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -160,6 +161,35 @@ public abstract class TimeSeriesProcessor {
         addSample(new XYChart.Data<>(timestamp, value));
     }
 
+    /**
+     * Adds a batch of samples to the processor's data store.
+     *
+     * @param timestamps the timestamps of the samples
+     * @param values     the values of the samples
+     */
+    public void addSamples(ZonedDateTime[] timestamps, double[] values) {
+        addSamples(timestamps, values, 0, timestamps.length);
+    }
+
+    /**
+     * Adds a batch of samples to the processor's data store.
+     * <p>All samples are added in a single operation, so this is much cheaper than adding them one at a time.
+     * Timestamp arrays can be shared between several processors.</p>
+     *
+     * @param timestamps the timestamps of the samples
+     * @param values     the values of the samples
+     * @param from       the index of the first sample to add, inclusive
+     * @param to         the index of the last sample to add, exclusive
+     */
+    public void addSamples(ZonedDateTime[] timestamps, double[] values, int from, int to) {
+        Objects.checkFromToIndex(from, to, Math.min(timestamps.length, values.length));
+        List<XYChart.Data<ZonedDateTime, Double>> samples = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            samples.add(new XYChart.Data<>(timestamps[i], values[i]));
+        }
+        monitor.write().lock(() -> this.data.addAll(samples));
+    }
+
     /**
      * Apply the transformation onto the data store.
      *
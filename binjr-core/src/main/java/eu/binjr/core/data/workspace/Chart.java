@@ -18,7 +18,6 @@ package eu.binjr.core.data.workspace;
 
 import eu.binjr.common.io.IOUtils;
 import eu.binjr.common.javafx.controls.TimeRange;
-import eu.binjr.core.data.async.AsyncTaskManager;
 import eu.binjr.core.data.dirtyable.ChangeWatcher;
 import eu.binjr.core.data.dirtyable.Dirtyable;
 import eu.binjr.core.data.dirtyable.IsDirtyable;
@@ -40,8 +39,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -218,6 +216,21 @@ public class Chart implements Dirtyable, AutoCloseable {
      */
     public void fetchDataFromSources(ZonedDateTime startTime, ZonedDateTime endTime, boolean bypassCache)
             throws DataAdapterException {
+        fetchDataFromSources(startTime, endTime, bypassCache, userPref.downSamplingThreshold.get().intValue());
+    }
+
+    /**
+     * Fills up the backend for all {@link TimeSeriesInfo} in the chart by querying the relevant data adapters
+     * for the specified time interval, and reduces the number of samples in each series to the specified threshold.
+     *
+     * @param startTime             the start of the time interval
+     * @param endTime               the end of the time interval
+     * @param bypassCache           set to true to forcefully bypass any cache on the adapter.
+     * @param downSamplingThreshold the maximum number of samples to keep in each series, if down-sampling is enabled.
+     * @throws DataAdapterException if an error occurs while retrieving data from the adapter
+     */
+    public void fetchDataFromSources(ZonedDateTime startTime, ZonedDateTime endTime, boolean bypassCache, int downSamplingThreshold)
+            throws DataAdapterException {
         // prune series from closed adapters
         series.removeIf(seriesInfo -> {
             if (seriesInfo.getBinding().getAdapter().isClosed()) {
@@ -235,72 +248,67 @@ public class Chart implements Dirtyable, AutoCloseable {
         var bindingsByAdapters = getSeries().stream().collect(groupingBy(o -> o.getBinding().getAdapter()));
         for (var byAdapterEntry : bindingsByAdapters.entrySet()) {
             // Define the transforms to apply
-            var reduce = userPref.downSamplingAlgorithm.get().instantiateTransform(getChartType(),
-                    userPref.downSamplingThreshold.get().intValue());
+            var reduce = userPref.downSamplingAlgorithm.get().instantiateTransform(getChartType(), downSamplingThreshold);
             reduce.setEnabled(userPref.downSamplingEnabled.get());
             var adapter = byAdapterEntry.getKey();
             var sort = new SortTransform();
             sort.setEnabled(adapter.isSortingRequired());
             // Group all queries with the same adapter and path
             var bindingsByPath = byAdapterEntry.getValue().stream().collect(groupingBy(o -> o.getBinding().getPath()));
-            var latch = new CountDownLatch(bindingsByPath.entrySet().size());
-            var errors = new ArrayList<Throwable>();
+            var fetches = new ArrayList<CompletableFuture<Void>>();
             for (var byPathEntry : bindingsByPath.entrySet()) {
-                AsyncTaskManager.getInstance().submitSubTask(
-                        () -> {
-                            try {
-                                String path = byPathEntry.getKey();
-                                logger.trace("Fetch sub-task '" + path + "' started");
-                                // Get data from the adapter
-                                var data = adapter.fetchData(
-                                        path,
-                                        startTime.toInstant(),
-                                        endTime.toInstant(),
-                                        byPathEntry.getValue(),
-                                        bypassCache);
-                                if (data.isEmpty()) {
-                                    // initialize processors with at least boundaries samples in it
-                                    for (var info : byPathEntry.getValue()) {
-                                        var proc = new DoubleTimeSeriesProcessor();
-                                        proc.addSample(startTime, Double.NaN);
-                                        proc.addSample(endTime, Double.NaN);
-                                        data.put(info, proc);
-                                    }
+                String path = byPathEntry.getKey();
+                logger.trace("Fetch sub-task '" + path + "' started");
+                // Get data from the adapter
+                fetches.add(adapter.fetchDataAsync(
+                        path,
+                        startTime.toInstant(),
+                        endTime.toInstant(),
+                        byPathEntry.getValue(),
+                        bypassCache,
+                        downSamplingThreshold)
+                        .thenAccept(data -> {
+                            if (data.isEmpty()) {
+                                // initialize processors with at least boundaries samples in it
+                                for (var info : byPathEntry.getValue()) {
+                                    var proc = new DoubleTimeSeriesProcessor();
+                                    proc.addSample(startTime, Double.NaN);
+                                    proc.addSample(endTime, Double.NaN);
+                                    data.put(info, proc);
                                 }
-                                data.entrySet().parallelStream().forEach(entry -> {
-                                    var info = entry.getKey();
-                                    var proc = entry.getValue();
-                                    //bind proc to timeSeries info
-                                    info.setProcessor(proc);
-                                    // Applying sample transforms
-                                    proc.applyTransforms(clean, sort, reduce);
-                                });
-                                // Run second pass transforms and time frame alignment
-                                data.entrySet().parallelStream().forEach(entry -> {
-                                    entry.getValue().applyTransforms(reduce.getNextPassTransform(), align);
-                                });
-                            } catch (Throwable t) {
+                            }
+                            data.entrySet().parallelStream().forEach(entry -> {
+                                // Applying sample transforms
+                                entry.getValue().applyTransforms(clean, sort, reduce);
+                            });
+                            // Run second pass transforms and time frame alignment
+                            data.entrySet().parallelStream().forEach(entry -> {
+                                var proc = entry.getValue();
+                                proc.applyTransforms(reduce.getNextPassTransform(), align);
+                                // Only bind proc to timeSeries info once it has been transformed, so that it is never
+                                // seen (e.g. by a data snapshot) while it is being modified.
+                                entry.getKey().setProcessor(proc);
+                            });
+                        })
+                        .whenComplete((v, t) -> {
+                            if (t != null) {
                                 logger.error(t);
-                                errors.add(t);
-                            } finally {
-                                logger.trace("Fetch sub-task 'for path'" + byPathEntry.getKey() + "' done");
-                                latch.countDown();
                             }
-                        });
+                            logger.trace("Fetch sub-task 'for path'" + path + "' done");
+                        }));
             }
             try {
-                if (!latch.await(userPref.asyncTasksTimeOutMs.get().longValue(), TimeUnit.MILLISECONDS)) {
-                    throw new DataAdapterException("Waiting for fetch sub-tasks to complete aborted");
-                }
-                if (!errors.isEmpty()) {
-                    for (var t : errors) {
-                        //FIXME only first exception is rethrown
-                        if (t instanceof DataAdapterException) {
-                            throw (DataAdapterException) t;
-                        } else {
-                            throw new DataAdapterException("Unexpected error while retrieving data from adapter: " + t.getMessage(), t);
-                        }
-                    }
+                CompletableFuture.allOf(fetches.toArray(CompletableFuture[]::new))
+                        .get(userPref.asyncTasksTimeOutMs.get().longValue(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new DataAdapterException("Waiting for fetch sub-tasks to complete aborted");
+            } catch (ExecutionException e) {
+                //FIXME only first exception is rethrown
+                var t = e.getCause() instanceof CompletionException ? e.getCause().getCause() : e.getCause();
+                if (t instanceof DataAdapterException) {
+                    throw (DataAdapterException) t;
+                } else {
+                    throw new DataAdapterException("Unexpected error while retrieving data from adapter: " + t.getMessage(), t);
                 }
             } catch (InterruptedException e) {
                 throw new DataAdapterException("Async fetch task interrupted", e);
@@ -122,52 +122,53 @@ public class Workspace implements Dirtyable {
      * @throws CannotLoadWorkspaceException if an error occurs while loading the workspace.
      */
     public static Workspace from(File file) throws IOException, JAXBException, CannotLoadWorkspaceException {
-        sanityCheck(file);
-        Workspace workspace = XmlUtils.deSerialize(Workspace.class, file);
-        logger.debug(() -> "Successfully deserialized workspace " + workspace.toString());
-        workspace.setPath(file.toPath());
-        workspace.cleanUp();
-        return workspace;
-    }
-
-    private static void sanityCheck(File file) throws IOException, CannotLoadWorkspaceException {
         if (file == null) {
             throw new IllegalArgumentException("File cannot be null");
         }
         if (!file.exists()) {
             throw new FileNotFoundException("Could not find specified workspace file " + file.getPath());
         }
+        Workspace workspace;
         try {
-            String verStr = XmlUtils.getFirstAttributeValue(file, "schemaVersion");
-            if (verStr == null) {
-                throw new CannotLoadWorkspaceException(
-                        "Could not determine the workspace's schema version: it was probably produced with an older, incompatible version of binjr." +
-                                "\n (Minimum supported schema version=" + MINIMUM_SUPPORTED_SCHEMA_VERSION.toString() + ")");
-            }
-            Version foundVersion = new Version(verStr);
-            if (foundVersion.compareTo(SUPPORTED_SCHEMA_VERSION) > 0) {
-                if (foundVersion.getMajor() != SUPPORTED_SCHEMA_VERSION.getMajor()) {
-                    // Only throw if major version is different, only warn otherwise.
-                    throw new CannotLoadWorkspaceException(
-                            "This workspace is not compatible with the current version of binjr. (Supported schema version="
-                                    + SUPPORTED_SCHEMA_VERSION.toString()
-                                    + ", found="
-                                    + foundVersion.toString() + ")");
-                }
-                logger.warn("This workspace version is higher that the supported version; there may be incompatibilities (Supported schema version="
-                        + SUPPORTED_SCHEMA_VERSION.toString()
-                        + ", found="
-                        + foundVersion.toString() + ")");
-            }
-            if (foundVersion.compareTo(MINIMUM_SUPPORTED_SCHEMA_VERSION) < 0) {
+            // The schema version is checked on the root element, in the same pass as the deserialization.
+            workspace = XmlUtils.deSerialize(Workspace.class, file,
+                    reader -> checkSchemaVersion(reader.getAttributeValue(null, "schemaVersion")));
+        } catch (XMLStreamException e) {
+            throw new CannotLoadWorkspaceException("Error retrieving bjr schema version", e);
+        }
+        logger.debug(() -> "Successfully deserialized workspace " + workspace.toString());
+        workspace.setPath(file.toPath());
+        workspace.cleanUp();
+        return workspace;
+    }
+
+    private static void checkSchemaVersion(String verStr) throws CannotLoadWorkspaceException {
+        if (verStr == null) {
+            throw new CannotLoadWorkspaceException(
+                    "Could not determine the workspace's schema version: it was probably produced with an older, incompatible version of binjr." +
+                            "\n (Minimum supported schema version=" + MINIMUM_SUPPORTED_SCHEMA_VERSION.toString() + ")");
+        }
+        Version foundVersion = new Version(verStr);
+        if (foundVersion.compareTo(SUPPORTED_SCHEMA_VERSION) > 0) {
+            if (foundVersion.getMajor() != SUPPORTED_SCHEMA_VERSION.getMajor()) {
+                // Only throw if major version is different, only warn otherwise.
                 throw new CannotLoadWorkspaceException(
-                        "This workspace is not compatible with the current version of binjr. (Minimum supported schema version="
-                                + MINIMUM_SUPPORTED_SCHEMA_VERSION.toString()
+                        "This workspace is not compatible with the current version of binjr. (Supported schema version="
+                                + SUPPORTED_SCHEMA_VERSION.toString()
                                 + ", found="
                                 + foundVersion.toString() + ")");
             }
-        } catch (XMLStreamException e) {
-            throw new CannotLoadWorkspaceException("Error retrieving bjr schema version", e);
+            logger.warn("This workspace version is higher that the supported version; there may be incompatibilities (Supported schema version="
+                    + SUPPORTED_SCHEMA_VERSION.toString()
+                    + ", found="
+                    + foundVersion.toString() + ")");
+        }
+        if (foundVersion.compareTo(MINIMUM_SUPPORTED_SCHEMA_VERSION) < 0) {
+            throw new CannotLoadWorkspaceException(
+                    "This workspace is not compatible with the current version of binjr. (Minimum supported schema version="
+                            + MINIMUM_SUPPORTED_SCHEMA_VERSION.toString()
+                            + ", found="
+                            + foundVersion.toString() + ")");
         }
     }
 
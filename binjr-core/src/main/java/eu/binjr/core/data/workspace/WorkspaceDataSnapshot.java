@@ -0,0 +1,263 @@
+/*
+ *    Copyright 2020 Frederic Thevenet
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package eu.binjr.core.data.workspace;
+
+import eu.binjr.common.io.BitReader;
+import eu.binjr.common.io.BitWriter;
+import eu.binjr.common.io.IOUtils;
+import eu.binjr.common.logging.Profiler;
+import eu.binjr.core.data.codec.columnar.TimestampCompressor;
+import eu.binjr.core.data.codec.columnar.TimestampDecompressor;
+import eu.binjr.core.data.codec.columnar.XorCompressor;
+import eu.binjr.core.data.codec.columnar.XorDecompressor;
+import eu.binjr.core.data.timeseries.DoubleTimeSeriesProcessor;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A compact binary copy of the data displayed by the charts of a {@link Workspace}, saved alongside the workspace's
+ * file so that charts can be drawn as soon as the workspace is reopened, while the data is being retrieved from
+ * the sources.
+ * <p>The samples of each series are stored using the same encoding as columnar files: timestamps are delta-of-delta
+ * encoded and values are XOR compressed.</p>
+ * <p>The data for a worksheet is only restored if its time range is the same as when the snapshot was taken, and
+ * that of a series only if it is bound to the same source and path.</p>
+ *
+ * @author Frederic Thevenet
+ */
+public final class WorkspaceDataSnapshot {
+    private static final Logger logger = LogManager.getLogger(WorkspaceDataSnapshot.class);
+    private static final int MAGIC = 0x424A5253;
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".data";
+    private final List<long[]> timeRanges = new ArrayList<>();
+    private final List<Entry> entries = new ArrayList<>();
+
+    private WorkspaceDataSnapshot() {
+    }
+
+    /**
+     * Returns the path of the snapshot for the workspace saved at the specified path.
+     *
+     * @param workspacePath the path of the workspace's file.
+     * @return the path of the snapshot for the workspace.
+     */
+    public static Path pathFor(Path workspacePath) {
+        return workspacePath.resolveSibling(workspacePath.getFileName() + FILE_EXTENSION);
+    }
+
+    /**
+     * Takes a snapshot of the data currently held by the series of the specified workspace.
+     * <p>This should be invoked on the UI thread, as the samples of the series are copied from the same instances
+     * as those displayed by the charts, which are updated in place on the UI thread. Series only hold down-sampled
+     * data at this point, so this is cheap enough; the copy can then be written on another thread.</p>
+     * <p>Series of worksheets that have not been loaded, or whose data was released while their tab was hidden,
+     * hold no data and are left out of the snapshot.</p>
+     *
+     * @param workspace the workspace to take a snapshot of.
+     * @return a snapshot of the data currently held by the series of the workspace.
+     */
+    public static WorkspaceDataSnapshot of(Workspace workspace) {
+        var snapshot = new WorkspaceDataSnapshot();
+        var worksheets = workspace.getWorksheets();
+        for (int w = 0; w < worksheets.size(); w++) {
+            var worksheet = worksheets.get(w);
+            snapshot.timeRanges.add(new long[]{
+                    worksheet.getFromDateTime().toInstant().toEpochMilli(),
+                    worksheet.getToDateTime().toInstant().toEpochMilli()});
+            var charts = worksheet.getCharts();
+            for (int c = 0; c < charts.size(); c++) {
+                var series = charts.get(c).getSeries();
+                for (int s = 0; s < series.size(); s++) {
+                    var info = series.get(s);
+                    var processor = info.getProcessor();
+                    if (processor != null && info.getBinding().getAdapterId() != null) {
+                        var data = processor.getData();
+                        long[] timestamps = new long[data.size()];
+                        double[] values = new double[data.size()];
+                        int i = 0;
+                        for (var sample : data) {
+                            timestamps[i] = sample.getXValue().toInstant().toEpochMilli();
+                            values[i] = sample.getYValue() == null ? Double.NaN : sample.getYValue();
+                            i++;
+                        }
+                        snapshot.entries.add(new Entry(w, c, s,
+                                info.getBinding().getAdapterId(),
+                                info.getBinding().getPath(),
+                                timestamps,
+                                values));
+                    }
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Writes the snapshot to the specified file, which is only replaced once the snapshot has been fully written.
+     *
+     * @param path the path of the file to write.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(Path path) throws IOException {
+        try (Profiler ignored = Profiler.start("Writing data snapshot to " + path, logger::trace)) {
+            IOUtils.writeAtomically(path, tmp -> {
+                try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+                    writeTo(out);
+                }
+            });
+        }
+    }
+
+    /**
+     * Restores the data from the specified snapshot into the series of a workspace.
+     * <p>This should be invoked after the workspace is deserialized and before it is displayed.</p>
+     *
+     * @param workspace the workspace to restore the data of.
+     * @param path      the path of the snapshot.
+     * @return the number of series for which data was restored.
+     * @throws IOException if an I/O error occurs or if the file is not a valid snapshot.
+     */
+    public static int restore(Workspace workspace, Path path) throws IOException {
+        try (Profiler ignored = Profiler.start("Restoring data snapshot from " + path, logger::trace);
+             var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a valid data snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported data snapshot format version: " + version);
+            }
+            var worksheets = workspace.getWorksheets();
+            int worksheetCount = in.readInt();
+            boolean[] sameTimeRange = new boolean[worksheetCount];
+            for (int w = 0; w < worksheetCount; w++) {
+                long from = in.readLong();
+                long to = in.readLong();
+                sameTimeRange[w] = w < worksheets.size() &&
+                        worksheets.get(w).getFromDateTime().toInstant().toEpochMilli() == from &&
+                        worksheets.get(w).getToDateTime().toInstant().toEpochMilli() == to;
+            }
+            int restored = 0;
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                int w = in.readInt();
+                int c = in.readInt();
+                int s = in.readInt();
+                var adapterId = new UUID(in.readLong(), in.readLong());
+                String seriesPath = in.readUTF();
+                int size = in.readInt();
+                byte[] timestamps = in.readNBytes(in.readInt());
+                byte[] values = in.readNBytes(in.readInt());
+                if (!sameTimeRange[w]) {
+                    continue;
+                }
+                var worksheet = worksheets.get(w);
+                if (c >= worksheet.getCharts().size() || s >= worksheet.getCharts().get(c).getSeries().size()) {
+                    continue;
+                }
+                var info = worksheet.getCharts().get(c).getSeries().get(s);
+                if (!adapterId.equals(info.getBinding().getAdapterId()) || !seriesPath.equals(info.getBinding().getPath())) {
+                    continue;
+                }
+                var timestampDecompressor = new TimestampDecompressor(new BitReader(ByteBuffer.wrap(timestamps)));
+                var valueDecompressor = new XorDecompressor(new BitReader(ByteBuffer.wrap(values)));
+                var zone = worksheet.getTimeZone();
+                ZonedDateTime[] x = new ZonedDateTime[size];
+                double[] y = new double[size];
+                for (int j = 0; j < size; j++) {
+                    x[j] = ZonedDateTime.ofInstant(Instant.ofEpochMilli(timestampDecompressor.next()), zone);
+                    y[j] = valueDecompressor.next();
+                }
+                var proc = new DoubleTimeSeriesProcessor();
+                proc.addSamples(x, y);
+                info.setProcessor(proc);
+                restored++;
+            }
+            return restored;
+        }
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(timeRanges.size());
+        for (var range : timeRanges) {
+            out.writeLong(range[0]);
+            out.writeLong(range[1]);
+        }
+        out.writeInt(entries.size());
+        var bitWriter = new BitWriter(64 * 1024);
+        for (var entry : entries) {
+            out.writeInt(entry.worksheetIndex);
+            out.writeInt(entry.chartIndex);
+            out.writeInt(entry.seriesIndex);
+            out.writeLong(entry.adapterId.getMostSignificantBits());
+            out.writeLong(entry.adapterId.getLeastSignificantBits());
+            out.writeUTF(entry.path);
+            out.writeInt(entry.timestamps.length);
+            bitWriter.reset();
+            var timestampCompressor = new TimestampCompressor(bitWriter);
+            for (long timestamp : entry.timestamps) {
+                timestampCompressor.add(timestamp);
+            }
+            writeBits(out, bitWriter);
+            bitWriter.reset();
+            var valueCompressor = new XorCompressor(bitWriter);
+            for (double value : entry.values) {
+                valueCompressor.add(value);
+            }
+            writeBits(out, bitWriter);
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, BitWriter bitWriter) throws IOException {
+        byte[] bytes = bitWriter.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static class Entry {
+        private final int worksheetIndex;
+        private final int chartIndex;
+        private final int seriesIndex;
+        private final UUID adapterId;
+        private final String path;
+        private final long[] timestamps;
+        private final double[] values;
+
+        private Entry(int worksheetIndex, int chartIndex, int seriesIndex, UUID adapterId, String path, long[] timestamps, double[] values) {
+            this.worksheetIndex = worksheetIndex;
+            this.chartIndex = chartIndex;
+            this.seriesIndex = seriesIndex;
+            this.adapterId = adapterId;
+            this.path = path;
+            this.timestamps = timestamps;
+            this.values = values;
+        }
+    }
+}
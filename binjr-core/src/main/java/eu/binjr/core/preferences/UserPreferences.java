@@ -51,6 +51,17 @@ public class UserPreferences extends PreferenceFactory {
      */
     public final Preference<Number> downSamplingThreshold = integerPreference("downSamplingThreshold", 1500);
 
+    /**
+     * True if the maximum number of samples to display should be derived from the width of each chart, false if
+     * {@link #downSamplingThreshold} should apply to all charts.
+     */
+    public final Preference<Boolean> adaptiveDownSamplingEnabled = booleanPreference("adaptiveDownSamplingEnabled", true);
+
+    /**
+     * The number of samples to display per device pixel along a chart's width, when adaptive down-sampling is enabled.
+     */
+    public final Preference<Number> downSamplingSamplesPerPixel = doublePreference("downSamplingSamplesPerPixel", 1.5d);
+
     /**
      * The username used for authenticated access to the GitHub API.
      */
@@ -76,6 +87,18 @@ public class UserPreferences extends PreferenceFactory {
      */
     public final Preference<Boolean> loadLastWorkspaceOnStartup = booleanPreference("loadLastWorkspaceOnStartup", false);
 
+    /**
+     * The time in seconds after which changes to a workspace that has already been saved to a file are saved
+     * automatically (0 to never save changes automatically).
+     */
+    public final Preference<Number> autoSaveWorkspaceAfterSeconds = integerPreference("autoSaveWorkspaceAfterSeconds", 0);
+
+    /**
+     * True if a copy of the data displayed by the charts should be saved alongside workspaces, so that it can be
+     * shown as soon as they are reopened, false otherwise.
+     */
+    public final Preference<Boolean> saveDataSnapshotWithWorkspace = booleanPreference("saveDataSnapshotWithWorkspace", false);
+
     /**
      * True to check if a new release is available each time the application starts, false otherwise.
      */
@@ -111,6 +134,24 @@ public class UserPreferences extends PreferenceFactory {
      */
     public final Preference<Number> defaultOpacityStackedAreaCharts = doublePreference("defaultOpacityStackedAreaCharts", 0.70d);
 
+    /**
+     * True if charts should be drawn onto a canvas, false if they should be rendered using JavaFX's standard charts.
+     */
+    public final Preference<Boolean> canvasChartRenderingEnabled = booleanPreference("canvasChartRenderingEnabled", true);
+
+    /**
+     * The maximum time in ms to spend applying chart updates on each frame, past which remaining updates are
+     * deferred to the next frame.
+     */
+    public final Preference<Number> chartUpdatesFrameBudgetMs = integerPreference("chartUpdatesFrameBudgetMs", 8);
+
+    /**
+     * The time in minutes after which a worksheet whose tab is not selected releases its charts and data, to be
+     * reloaded the next time its tab is selected (0 to never release them).
+     * <p>Data snapshots saved alongside the workspace do not include the data of released worksheets.</p>
+     */
+    public final Preference<Number> reclaimHiddenWorksheetsAfterMinutes = integerPreference("reclaimHiddenWorksheetsAfterMinutes", 30);
+
     /**
      * True is the shift key is pressed, false otherwise.
      */
@@ -205,6 +246,60 @@ public class UserPreferences extends PreferenceFactory {
      */
     public final Preference<Boolean> httpPoolingEnabled = booleanPreference("httpPoolingEnabled", true);
 
+    /**
+     * The maximum number of pooled http connections per route.
+     */
+    public final Preference<Number> httpMaxConnectionsPerRoute = integerPreference("httpMaxConnectionsPerRoute", 16);
+
+    /**
+     * The maximum number of pooled http connections in total.
+     */
+    public final Preference<Number> httpMaxConnectionsTotal = integerPreference("httpMaxConnectionsTotal", 100);
+
+    /**
+     * The timeout in ms for establishing http connections (0 for no timeout).
+     */
+    public final Preference<Number> httpConnectTimeoutMs = integerPreference("httpConnectTimeoutMs", 30000);
+
+    /**
+     * The maximum period of inactivity in ms while waiting for data on an http connection (0 for no timeout).
+     */
+    public final Preference<Number> httpSocketTimeoutMs = integerPreference("httpSocketTimeoutMs", 120000);
+
+    /**
+     * How long in ms idle http connections are kept alive, unless otherwise specified by the server.
+     */
+    public final Preference<Number> httpKeepAliveMs = integerPreference("httpKeepAliveMs", 30000);
+
+    /**
+     * True if data retrieved over http should be decoded as it is being downloaded, false if responses should be
+     * fully downloaded before being decoded.
+     */
+    public final Preference<Boolean> httpResponseStreamingEnabled = booleanPreference("httpResponseStreamingEnabled", false);
+
+    /**
+     * True if the http client should request compressed (gzip or deflate) responses, false otherwise.
+     */
+    public final Preference<Boolean> httpCompressionEnabled = booleanPreference("httpCompressionEnabled", true);
+
+    /**
+     * True if responses for resources that rarely change (e.g. source trees) should be stored and revalidated with
+     * conditional requests, false otherwise.
+     */
+    public final Preference<Boolean> httpConditionalRequestsEnabled = booleanPreference("httpConditionalRequestsEnabled", true);
+
+    /**
+     * The location where responses revalidated with conditional requests are stored.
+     */
+    public final Preference<Path> httpValidatorStoreLocation =
+            pathPreference("httpValidatorStoreLocation", Path.of(System.getProperty("user.home"), ".binjr", "http_cache"));
+
+    /**
+     * The maximum size in megabytes of the responses stored for conditional requests; the least recently used
+     * responses are removed beyond that.
+     */
+    public final Preference<Number> httpValidatorStoreMaxSizeMB = integerPreference("httpValidatorStoreMaxSizeMB", 100);
+
     /**
      * True if NaN values in series should be replaced by zero before drawing the chart.
      */